@@ -0,0 +1,59 @@
+package com.akchi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BackupBenchmark {
+
+    @Param({"objects", "folders", "linked", "pack"})
+    public String storage;
+
+    @Param({SaveTrees.FTL, SaveTrees.FEW_LARGE, SaveTrees.MANY_SMALL})
+    public String shape;
+
+    @Param({SaveTrees.MOSTLY_UNCHANGED, SaveTrees.FULLY_CHANGED})
+    public String churn;
+
+    private final Random random = new Random(42);
+    private BenchmarkWorkspace workspace;
+    private int backupCount;
+
+    @Setup(Level.Trial)
+    public void createTree() throws IOException {
+        workspace = new BenchmarkWorkspace(storage);
+        SaveTrees.generate(workspace.autosave, shape, random);
+        workspace.engine.getCatalog().add(workspace.engine.getStorage().createBackup(workspace.autosave, "seed", IoProgress.none()));
+    }
+
+    @Setup(Level.Invocation)
+    public void playTurn() throws IOException {
+        SaveTrees.mutate(workspace.autosave, churn, random);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTree() throws IOException {
+        workspace.close();
+    }
+
+    @Benchmark
+    public BackupInfo createBackup() throws IOException {
+        BackupInfo info = workspace.engine.getStorage().createBackup(workspace.autosave, "backup-" + backupCount++, IoProgress.none());
+        workspace.engine.getCatalog().add(info);
+        return info;
+    }
+}
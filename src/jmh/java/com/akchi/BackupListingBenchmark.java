@@ -0,0 +1,66 @@
+package com.akchi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BackupListingBenchmark {
+
+    @Param({"objects", "folders", "linked", "pack"})
+    public String storage;
+
+    @Param({"50", "500"})
+    public int backups;
+
+    private BenchmarkWorkspace workspace;
+
+    @Setup(Level.Trial)
+    public void createBackups() throws IOException {
+        Random random = new Random(42);
+        workspace = new BenchmarkWorkspace(storage);
+        SaveTrees.generate(workspace.autosave, SaveTrees.FTL, random);
+        for (int i = 0; i < backups; i++) {
+            SaveTrees.mutate(workspace.autosave, SaveTrees.MOSTLY_UNCHANGED, random);
+            workspace.engine.getCatalog().add(workspace.engine.getStorage().createBackup(workspace.autosave, String.format("backup-%05d", i), IoProgress.none()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteBackups() throws IOException {
+        workspace.close();
+    }
+
+    @Benchmark
+    public List<String> listBackups() throws IOException {
+        return workspace.engine.getStorage().listBackups();
+    }
+
+    @Benchmark
+    public List<BackupInfo> loadCatalog() {
+        BackupCatalog catalog = new BackupCatalog(workspace.backup.resolve("catalog-" + storage + ".jsonl"), workspace.engine.getStorage());
+        catalog.load();
+        return catalog.newestFirst();
+    }
+
+    @Benchmark
+    public List<BackupInfo> rebuildCatalog() {
+        BackupCatalog catalog = new BackupCatalog(workspace.root.resolve("rebuilt-catalog.jsonl"), workspace.engine.getStorage());
+        catalog.rebuild();
+        return catalog.newestFirst();
+    }
+}
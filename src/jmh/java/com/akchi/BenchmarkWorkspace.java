@@ -0,0 +1,32 @@
+package com.akchi;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+final class BenchmarkWorkspace {
+
+    final Path root;
+    final Path ftl;
+    final Path autosave;
+    final Path backup;
+    final SnapshotEngine engine;
+
+    BenchmarkWorkspace(String storageMode) throws IOException {
+        root = Files.createTempDirectory("ftl-bench");
+        ftl = root.resolve("FasterThanLight");
+        autosave = root.resolve("autosave");
+        backup = root.resolve("backup");
+        Path configFile = root.resolve("config/autosaveConfig.json");
+        ConfigStore config = new ConfigStore(configFile.toFile(), 0);
+        config.set("backup_storage", storageMode);
+        config.flush();
+        engine = new SnapshotEngine(configFile.toFile(), ftl.toFile(), autosave.toFile(), backup.toFile(), Runnable::run);
+        engine.ensureFoldersExist();
+    }
+
+    void close() throws IOException {
+        engine.close();
+        SaveTrees.delete(root);
+    }
+}
@@ -0,0 +1,97 @@
+package com.akchi;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+final class SaveTrees {
+
+    static final String FEW_LARGE = "few-large";
+    static final String MANY_SMALL = "many-small";
+    static final String FTL = "ftl";
+    static final String MOSTLY_UNCHANGED = "mostly-unchanged";
+    static final String FULLY_CHANGED = "fully-changed";
+
+    private SaveTrees() {
+    }
+
+    static void generate(Path root, String shape, Random random) throws IOException {
+        Files.createDirectories(root);
+        if (FEW_LARGE.equals(shape)) {
+            for (int i = 0; i < 4; i++) {
+                write(root.resolve("large-" + i + ".sav"), 4 * 1024 * 1024, random);
+            }
+        } else if (MANY_SMALL.equals(shape)) {
+            for (int dir = 0; dir < 20; dir++) {
+                Path folder = Files.createDirectories(root.resolve("dir-" + dir));
+                for (int i = 0; i < 100; i++) {
+                    write(folder.resolve("small-" + i + ".sav"), 4 * 1024, random);
+                }
+            }
+        } else if (FTL.equals(shape)) {
+            write(root.resolve("continue.sav"), 300 * 1024, random);
+            write(root.resolve("ae_prof.sav"), 40 * 1024, random);
+            write(root.resolve("settings.ini"), 2 * 1024, random);
+        } else {
+            throw new IllegalArgumentException("Unknown tree shape " + shape);
+        }
+    }
+
+    static void mutate(Path root, String churn, Random random) throws IOException {
+        List<Path> files = files(root);
+        int changes = FULLY_CHANGED.equals(churn) ? files.size() : Math.max(1, files.size() / 20);
+        for (int i = 0; i < changes; i++) {
+            Path file = FULLY_CHANGED.equals(churn) ? files.get(i) : files.get(random.nextInt(files.size()));
+            byte[] content = Files.readAllBytes(file);
+            int edits = Math.max(1, content.length / 64);
+            for (int edit = 0; edit < edits; edit++) {
+                content[random.nextInt(content.length)] = (byte) random.nextInt(256);
+            }
+            Files.write(file, content);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + i));
+        }
+    }
+
+    static void deleteAndCopy(Path source, Path target) throws IOException {
+        if (Files.exists(target)) {
+            delete(target);
+        }
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path sourcePath : (Iterable<Path>) paths::iterator) {
+                Files.copy(sourcePath, target.resolve(source.relativize(sourcePath)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    static void delete(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static List<Path> files(Path root) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.filter(Files::isRegularFile).sorted().forEach(files::add);
+        }
+        return files;
+    }
+
+    private static void write(Path file, int size, Random random) throws IOException {
+        byte[] content = new byte[size];
+        random.nextBytes(content);
+        Files.write(file, content);
+    }
+}
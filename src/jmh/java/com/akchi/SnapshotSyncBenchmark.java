@@ -0,0 +1,65 @@
+package com.akchi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SnapshotSyncBenchmark {
+
+    @Param({SaveTrees.FTL, SaveTrees.FEW_LARGE, SaveTrees.MANY_SMALL})
+    public String shape;
+
+    @Param({SaveTrees.MOSTLY_UNCHANGED, SaveTrees.FULLY_CHANGED})
+    public String churn;
+
+    private final Random random = new Random(42);
+    private BenchmarkWorkspace workspace;
+    private SnapshotSync snapshotSync;
+
+    @Setup(Level.Trial)
+    public void createTrees() throws IOException {
+        workspace = new BenchmarkWorkspace("objects");
+        SaveTrees.generate(workspace.ftl, shape, random);
+        snapshotSync = new SnapshotSync(false, new ParallelCopier(ParallelCopier.defaultParallelism()));
+        snapshotSync.sync(workspace.ftl, workspace.autosave);
+    }
+
+    @Setup(Level.Invocation)
+    public void playTurn() throws IOException {
+        SaveTrees.mutate(workspace.ftl, churn, random);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTrees() throws IOException {
+        workspace.close();
+    }
+
+    @Benchmark
+    public SnapshotSync.SyncResult copyFolder() throws IOException {
+        return snapshotSync.sync(workspace.ftl, workspace.autosave);
+    }
+
+    @Benchmark
+    public void restart() throws IOException {
+        workspace.engine.quickRestart(IoProgress.none());
+    }
+
+    @Benchmark
+    public void deleteAndCopyBaseline() throws IOException {
+        SaveTrees.deleteAndCopy(workspace.ftl, workspace.autosave);
+    }
+}
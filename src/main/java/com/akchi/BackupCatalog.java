@@ -0,0 +1,205 @@
+package com.akchi;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class BackupCatalog {
+
+    private static final String ID = "id";
+    private static final String CREATED = "created";
+    private static final String SIZE = "size";
+    private static final String FILES = "files";
+    private static final String MANIFEST_HASH = "manifest_hash";
+    private static final String LEGACY_HASH = "hash";
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final Path catalogFile;
+    private final BackupStorage backupStorage;
+    private final Map<String, BackupInfo> backups = new HashMap<>();
+    private List<BackupInfo> sorted;
+
+    public BackupCatalog(Path catalogFile, BackupStorage backupStorage) {
+        this.catalogFile = catalogFile;
+        this.backupStorage = backupStorage;
+    }
+
+    public synchronized void load() {
+        backups.clear();
+        sorted = null;
+        if (!Files.isRegularFile(catalogFile)) {
+            rebuild();
+            return;
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(catalogFile, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.info(e.getMessage());
+            rebuild();
+            return;
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                BackupInfo info = fromJson(JsonParser.parseString(line).getAsJsonObject());
+                backups.put(info.getId(), info);
+            } catch (RuntimeException e) {
+                if (i == lines.size() - 1) {
+                    logger.log(Level.INFO, "Dropping truncated catalog entry: {0}", e.getMessage());
+                    persist();
+                } else {
+                    logger.log(Level.INFO, "Catalog is corrupted, rebuilding: {0}", e.getMessage());
+                    rebuild();
+                }
+                return;
+            }
+        }
+        reconcile();
+    }
+
+    private void reconcile() {
+        List<String> stored = backupStorage.listBackups();
+        boolean changed = backups.keySet().retainAll(new HashSet<>(stored));
+        for (String backupId : stored) {
+            if (!backups.containsKey(backupId)) {
+                try {
+                    backups.put(backupId, backupStorage.describeBackup(backupId));
+                } catch (IOException | RuntimeException e) {
+                    logger.log(Level.INFO, "Skipping unreadable backup {0}: {1}", new Object[]{backupId, e.getMessage()});
+                }
+                changed = true;
+            }
+        }
+        if (changed) {
+            logger.info("Backup catalog was out of date with storage, updating it");
+            persist();
+        }
+    }
+
+    public synchronized void rebuild() {
+        backups.clear();
+        sorted = null;
+        for (String backupId : backupStorage.listBackups()) {
+            try {
+                backups.put(backupId, backupStorage.describeBackup(backupId));
+            } catch (IOException | RuntimeException e) {
+                logger.log(Level.INFO, "Skipping unreadable backup {0}: {1}", new Object[]{backupId, e.getMessage()});
+            }
+        }
+        persist();
+        logger.log(Level.INFO, "Rebuilt backup catalog with {0} entries", backups.size());
+    }
+
+    public synchronized void add(BackupInfo info) {
+        boolean replaced = backups.put(info.getId(), info) != null;
+        sorted = null;
+        if (replaced) {
+            persist();
+            return;
+        }
+        try (Writer writer = Files.newBufferedWriter(catalogFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(toJson(info).toString());
+            writer.write(System.lineSeparator());
+        } catch (IOException e) {
+            logger.info(e.getMessage());
+        }
+    }
+
+    public synchronized void remove(Collection<String> backupIds) {
+        boolean changed = false;
+        for (String backupId : backupIds) {
+            changed |= backups.remove(backupId) != null;
+        }
+        if (changed) {
+            sorted = null;
+            persist();
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return backups.isEmpty();
+    }
+
+    public synchronized int size() {
+        return backups.size();
+    }
+
+    public synchronized BackupInfo get(String backupId) {
+        return backups.get(backupId);
+    }
+
+    public synchronized BackupInfo latest() {
+        List<BackupInfo> newest = newestFirst();
+        return newest.isEmpty() ? null : newest.get(0);
+    }
+
+    public synchronized List<BackupInfo> newestFirst() {
+        if (sorted == null) {
+            List<BackupInfo> list = new ArrayList<>(backups.values());
+            list.sort(Comparator.comparing(BackupInfo::getCreated).thenComparing(BackupInfo::getId).reversed());
+            sorted = Collections.unmodifiableList(list);
+        }
+        return sorted;
+    }
+
+    private void persist() {
+        try {
+            Files.createDirectories(catalogFile.getParent());
+            Path temp = Files.createTempFile(catalogFile.getParent(), catalogFile.getFileName().toString(), ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    for (BackupInfo info : backups.values()) {
+                        writer.write(toJson(info).toString());
+                        writer.write(System.lineSeparator());
+                    }
+                }
+                Files.move(temp, catalogFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.info(e.getMessage());
+        }
+    }
+
+    private static JsonObject toJson(BackupInfo info) {
+        JsonObject json = new JsonObject();
+        json.addProperty(ID, info.getId());
+        json.addProperty(CREATED, info.getCreated().toString());
+        json.addProperty(SIZE, info.getSize());
+        json.addProperty(FILES, info.getFileCount());
+        json.addProperty(MANIFEST_HASH, info.getManifestHash());
+        return json;
+    }
+
+    private static BackupInfo fromJson(JsonObject json) {
+        return new BackupInfo(
+                json.get(ID).getAsString(),
+                Instant.parse(json.get(CREATED).getAsString()),
+                json.get(SIZE).getAsLong(),
+                json.get(FILES).getAsInt(),
+                (json.has(MANIFEST_HASH) ? json.get(MANIFEST_HASH) : json.get(LEGACY_HASH)).getAsString());
+    }
+}
@@ -0,0 +1,46 @@
+package com.akchi;
+
+import java.time.Instant;
+
+// The manifest hash is only comparable between backups of the same storage backend.
+public final class BackupInfo {
+
+    private final String id;
+    private final Instant created;
+    private final long size;
+    private final int fileCount;
+    private final String manifestHash;
+
+    public BackupInfo(String id, Instant created, long size, int fileCount, String manifestHash) {
+        this.id = id;
+        this.created = created;
+        this.size = size;
+        this.fileCount = fileCount;
+        this.manifestHash = manifestHash;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Instant getCreated() {
+        return created;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public String getManifestHash() {
+        return manifestHash;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
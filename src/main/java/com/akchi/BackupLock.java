@@ -0,0 +1,97 @@
+package com.akchi;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// The OS file lock is per JVM, so threads of one process first queue on a shared reentrant lock.
+public class BackupLock {
+
+    private static final Map<Path, Holder> HOLDERS = new ConcurrentHashMap<>();
+
+    private final Path lockFile;
+    private final long timeoutMillis;
+
+    public BackupLock(Path lockFile, long timeoutMillis) {
+        this.lockFile = lockFile.toAbsolutePath().normalize();
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public void lock() throws IOException {
+        Holder holder = HOLDERS.computeIfAbsent(lockFile, key -> new Holder());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            if (!holder.lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out waiting for another task to finish writing to " + lockFile.getParent());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the backup lock");
+        }
+        if (holder.lock.getHoldCount() == 1) {
+            try {
+                holder.fileLock = lockFile(deadline);
+            } catch (IOException | RuntimeException e) {
+                holder.lock.unlock();
+                throw e;
+            }
+        }
+    }
+
+    public void unlock() throws IOException {
+        Holder holder = HOLDERS.get(lockFile);
+        if (holder == null || !holder.lock.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("Backup lock is not held: " + lockFile);
+        }
+        release(holder);
+    }
+
+    private FileLock lockFile(long deadline) throws IOException {
+        Files.createDirectories(lockFile.getParent());
+        FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            while (true) {
+                FileLock fileLock = channel.tryLock();
+                if (fileLock != null) {
+                    return fileLock;
+                }
+                if (System.nanoTime() >= deadline) {
+                    throw new IOException("Another FTL Autosave Manager process is writing to " + lockFile.getParent());
+                }
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            channel.close();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the backup lock");
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void release(Holder holder) throws IOException {
+        try {
+            if (holder.lock.getHoldCount() == 1) {
+                FileLock fileLock = holder.fileLock;
+                holder.fileLock = null;
+                fileLock.channel().close();
+            }
+        } finally {
+            holder.lock.unlock();
+        }
+    }
+
+    private static final class Holder {
+        private final ReentrantLock lock = new ReentrantLock();
+        private FileLock fileLock;
+    }
+}
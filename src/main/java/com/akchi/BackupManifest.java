@@ -0,0 +1,72 @@
+package com.akchi;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public final class BackupManifest {
+
+    private final Map<String, Entry> files = new HashMap<>();
+
+    public void add(String path, long size, long modified, String sha256) {
+        files.put(path, new Entry(size, modified, sha256));
+    }
+
+    public int getFileCount() {
+        return files.size();
+    }
+
+    public void verify(Path root) throws IOException {
+        Set<String> unexpected = new HashSet<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS) && !files.containsKey(FileTrees.relativeName(root, path))) {
+                    unexpected.add(FileTrees.relativeName(root, path));
+                }
+            }
+        }
+        if (!unexpected.isEmpty()) {
+            throw mismatch(unexpected.iterator().next(), "not in the backup");
+        }
+        for (Map.Entry<String, Entry> file : files.entrySet()) {
+            Path path = root.resolve(file.getKey());
+            Entry expected = file.getValue();
+            if (!Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+                throw mismatch(file.getKey(), "missing");
+            }
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            if (attrs.size() != expected.size) {
+                throw mismatch(file.getKey(), attrs.size() + " bytes, expected " + expected.size);
+            }
+            if (attrs.lastModifiedTime().toMillis() != expected.modified) {
+                throw mismatch(file.getKey(), "modified at " + attrs.lastModifiedTime().toMillis() + ", expected " + expected.modified);
+            }
+            if (expected.sha256 != null && !expected.sha256.equals(FileHashing.sha256(path))) {
+                throw mismatch(file.getKey(), "content hash differs");
+            }
+        }
+    }
+
+    private static IOException mismatch(String path, String reason) {
+        return new IOException("Restored files do not match the snapshot: " + path + " " + reason);
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        private final String sha256;
+
+        private Entry(long size, long modified, String sha256) {
+            this.size = size;
+            this.modified = modified;
+            this.sha256 = sha256;
+        }
+    }
+}
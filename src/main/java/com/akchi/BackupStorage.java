@@ -0,0 +1,21 @@
+package com.akchi;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+public interface BackupStorage {
+
+    List<String> listBackups();
+
+    BackupInfo createBackup(Path source, String backupId, IoProgress progress) throws IOException;
+
+    BackupInfo describeBackup(String backupId) throws IOException;
+
+    BackupManifest describeFiles(String backupId) throws IOException;
+
+    void restoreBackup(String backupId, Path target, IoProgress progress) throws IOException;
+
+    void deleteBackups(Collection<String> backupIds) throws IOException;
+}
@@ -0,0 +1,91 @@
+package com.akchi;
+
+import javax.swing.AbstractListModel;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BackupTimelineModel extends AbstractListModel<BackupTimelineModel.Row> {
+
+    private static final long serialVersionUID = 1L;
+    private static final int PAGE_SIZE = 128;
+    private static final int MAX_PAGES = 16;
+
+    private final SaveIndex saveIndex;
+    private final Map<Integer, Row[]> pages = new LinkedHashMap<Integer, Row[]>(MAX_PAGES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Row[]> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+    private List<BackupInfo> backups = Collections.emptyList();
+
+    public BackupTimelineModel(SaveIndex saveIndex) {
+        this.saveIndex = saveIndex;
+    }
+
+    public void setBackups(List<BackupInfo> backups) {
+        int previousSize = this.backups.size();
+        this.backups = backups;
+        pages.clear();
+        if (previousSize > 0) {
+            fireIntervalRemoved(this, 0, previousSize - 1);
+        }
+        if (!backups.isEmpty()) {
+            fireIntervalAdded(this, 0, backups.size() - 1);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return backups.size();
+    }
+
+    @Override
+    public Row getElementAt(int index) {
+        Row[] page = pages.get(index / PAGE_SIZE);
+        if (page == null) {
+            page = loadPage(index / PAGE_SIZE);
+            pages.put(index / PAGE_SIZE, page);
+        }
+        return page[index % PAGE_SIZE];
+    }
+
+    private Row[] loadPage(int pageNumber) {
+        int start = pageNumber * PAGE_SIZE;
+        Row[] page = new Row[Math.min(PAGE_SIZE, backups.size() - start)];
+        for (int i = 0; i < page.length; i++) {
+            BackupInfo backup = backups.get(start + i);
+            page[i] = new Row(backup, saveIndex.get(backup.getId()));
+        }
+        return page;
+    }
+
+    public static final class Row {
+        private final BackupInfo backup;
+        private final SaveMetadata metadata;
+
+        private Row(BackupInfo backup, SaveMetadata metadata) {
+            this.backup = backup;
+            this.metadata = metadata;
+        }
+
+        public String getId() {
+            return backup.getId();
+        }
+
+        public String getDetails() {
+            if (metadata == null) {
+                return backup.getFileCount() + " files, " + backup.getSize() / 1024 + " KB";
+            }
+            return String.format("%s, sector %d, hull %d, scrap %d, crew %d, %s", metadata.getShipName(), metadata.getSector(),
+                    metadata.getHull(), metadata.getScrap(), metadata.getCrewCount(), metadata.getDifficultyName());
+        }
+
+        @Override
+        public String toString() {
+            return getId();
+        }
+    }
+}
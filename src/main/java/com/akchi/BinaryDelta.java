@@ -0,0 +1,168 @@
+package com.akchi;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// rsync-style delta: COPY runs from the base, ADD literals for everything else.
+public final class BinaryDelta {
+
+    private static final int BLOCK_SIZE = 32;
+    private static final int MAX_CANDIDATES = 8;
+    private static final int COPY = 1;
+    private static final int ADD = 2;
+
+    private BinaryDelta() {
+    }
+
+    public static byte[] encode(byte[] base, byte[] target) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, target.length / 8));
+        writeVarint(out, target.length);
+
+        Map<Long, List<Integer>> blocks = new HashMap<>();
+        for (int offset = 0; offset + BLOCK_SIZE <= base.length; offset += BLOCK_SIZE) {
+            List<Integer> candidates = blocks.computeIfAbsent(checksum(base, offset), key -> new ArrayList<>(1));
+            if (candidates.size() < MAX_CANDIDATES) {
+                candidates.add(offset);
+            }
+        }
+
+        int literalStart = 0;
+        int position = 0;
+        int a = 0;
+        int b = 0;
+        boolean rolling = false;
+        while (position + BLOCK_SIZE <= target.length) {
+            if (!rolling) {
+                a = 0;
+                b = 0;
+                for (int i = 0; i < BLOCK_SIZE; i++) {
+                    int value = target[position + i] & 0xFF;
+                    a += value;
+                    b += (BLOCK_SIZE - i) * value;
+                }
+                rolling = true;
+            }
+
+            int matchOffset = findMatch(blocks.get(key(a, b)), base, target, position);
+            if (matchOffset >= 0) {
+                int start = position;
+                int length = BLOCK_SIZE;
+                while (matchOffset + length < base.length && start + length < target.length
+                        && base[matchOffset + length] == target[start + length]) {
+                    length++;
+                }
+                while (matchOffset > 0 && start > literalStart && base[matchOffset - 1] == target[start - 1]) {
+                    matchOffset--;
+                    start--;
+                    length++;
+                }
+                writeAdd(out, target, literalStart, start);
+                out.write(COPY);
+                writeVarint(out, matchOffset);
+                writeVarint(out, length);
+                position = start + length;
+                literalStart = position;
+                rolling = false;
+                continue;
+            }
+
+            if (position + BLOCK_SIZE < target.length) {
+                int removed = target[position] & 0xFF;
+                int added = target[position + BLOCK_SIZE] & 0xFF;
+                a += added - removed;
+                b += a - BLOCK_SIZE * removed;
+            }
+            position++;
+        }
+        writeAdd(out, target, literalStart, target.length);
+        return out.toByteArray();
+    }
+
+    public static byte[] apply(byte[] base, byte[] delta) {
+        int[] cursor = {0};
+        int length = readVarint(delta, cursor);
+        byte[] result = new byte[length];
+        int position = 0;
+        while (cursor[0] < delta.length) {
+            int op = delta[cursor[0]++];
+            if (op == COPY) {
+                int offset = readVarint(delta, cursor);
+                int count = readVarint(delta, cursor);
+                System.arraycopy(base, offset, result, position, count);
+                position += count;
+            } else if (op == ADD) {
+                int count = readVarint(delta, cursor);
+                System.arraycopy(delta, cursor[0], result, position, count);
+                cursor[0] += count;
+                position += count;
+            } else {
+                throw new IllegalArgumentException("Unknown delta op " + op);
+            }
+        }
+        if (position != length) {
+            throw new IllegalArgumentException("Delta produced " + position + " bytes, expected " + length);
+        }
+        return result;
+    }
+
+    private static int findMatch(List<Integer> candidates, byte[] base, byte[] target, int position) {
+        if (candidates == null) {
+            return -1;
+        }
+        for (int offset : candidates) {
+            if (Arrays.equals(base, offset, offset + BLOCK_SIZE, target, position, position + BLOCK_SIZE)) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private static long checksum(byte[] data, int offset) {
+        int a = 0;
+        int b = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            int value = data[offset + i] & 0xFF;
+            a += value;
+            b += (BLOCK_SIZE - i) * value;
+        }
+        return key(a, b);
+    }
+
+    private static long key(int a, int b) {
+        return ((long) b << 32) | (a & 0xFFFFFFFFL);
+    }
+
+    private static void writeAdd(ByteArrayOutputStream out, byte[] data, int from, int to) {
+        if (to > from) {
+            out.write(ADD);
+            writeVarint(out, to - from);
+            out.write(data, from, to - from);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.write((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write(remaining);
+    }
+
+    private static int readVarint(byte[] data, int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            int next = data[cursor[0]++] & 0xFF;
+            value |= (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.akchi;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ConfigStore {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final Path configFile;
+    private final long debounceMillis;
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ftl-config-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object writeLock = new Object();
+    private JsonObject json = new JsonObject();
+    private ScheduledFuture<?> pendingFlush;
+    private boolean dirty;
+
+    public ConfigStore(File configFile, long debounceMillis) {
+        this.configFile = configFile.toPath();
+        this.debounceMillis = debounceMillis;
+        load();
+    }
+
+    private synchronized void load() {
+        if (!Files.isRegularFile(configFile)) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(configFile, StandardCharsets.UTF_8)) {
+            JsonElement parsed = JsonParser.parseReader(reader);
+            if (parsed.isJsonObject()) {
+                json = parsed.getAsJsonObject();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.info(e.getMessage());
+        }
+    }
+
+    public synchronized boolean has(String key) {
+        return json.has(key) && !json.get(key).isJsonNull();
+    }
+
+    public synchronized int getInt(String key, int defaultValue) {
+        try {
+            return has(key) ? json.get(key).getAsInt() : defaultValue;
+        } catch (RuntimeException e) {
+            logger.log(Level.INFO, "Invalid value for {0}: {1}", new Object[]{key, e.getMessage()});
+            return defaultValue;
+        }
+    }
+
+    public synchronized long getLong(String key, long defaultValue) {
+        try {
+            return has(key) ? json.get(key).getAsLong() : defaultValue;
+        } catch (RuntimeException e) {
+            logger.log(Level.INFO, "Invalid value for {0}: {1}", new Object[]{key, e.getMessage()});
+            return defaultValue;
+        }
+    }
+
+    public synchronized boolean getBoolean(String key, boolean defaultValue) {
+        try {
+            return has(key) ? json.get(key).getAsBoolean() : defaultValue;
+        } catch (RuntimeException e) {
+            logger.log(Level.INFO, "Invalid value for {0}: {1}", new Object[]{key, e.getMessage()});
+            return defaultValue;
+        }
+    }
+
+    public synchronized JsonArray getArray(String key) {
+        if (has(key) && json.get(key).isJsonArray()) {
+            return json.getAsJsonArray(key).deepCopy();
+        }
+        return new JsonArray();
+    }
+
+    public synchronized String getString(String key, String defaultValue) {
+        try {
+            return has(key) ? json.get(key).getAsString() : defaultValue;
+        } catch (RuntimeException e) {
+            logger.log(Level.INFO, "Invalid value for {0}: {1}", new Object[]{key, e.getMessage()});
+            return defaultValue;
+        }
+    }
+
+    public synchronized void set(String key, Number value) {
+        json.addProperty(key, value);
+        scheduleFlush();
+    }
+
+    public synchronized void set(String key, String value) {
+        json.addProperty(key, value);
+        scheduleFlush();
+    }
+
+    public synchronized void set(String key, Boolean value) {
+        json.addProperty(key, value);
+        scheduleFlush();
+    }
+
+    public synchronized void remove(String key) {
+        if (json.remove(key) != null) {
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush() {
+        dirty = true;
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+        }
+        pendingFlush = FLUSHER.schedule(this::flush, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void flush() {
+        synchronized (writeLock) {
+            String content;
+            synchronized (this) {
+                if (!dirty) {
+                    return;
+                }
+                content = json.toString();
+                dirty = false;
+                pendingFlush = null;
+            }
+            try {
+                writeAtomically(content);
+            } catch (IOException e) {
+                logger.info(e.getMessage());
+                synchronized (this) {
+                    dirty = true;
+                }
+            }
+        }
+    }
+
+    private void writeAtomically(String content) throws IOException {
+        Files.createDirectories(configFile.getParent());
+        Path temp = Files.createTempFile(configFile.getParent(), configFile.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(content);
+            }
+            Files.move(temp, configFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.akchi;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public final class FTLAutosaveCli {
+
+    private static final Logger logger = Logger.getLogger(FTLAutosaveCli.class.getName());
+    private static final String USAGE = "Usage: FTLAutosaveManager <command> [--profile NAME]\n"
+            + "  watch [--interval MINUTES]  snapshot every profile, or only --profile, on each save until stopped\n"
+            + "  snapshot                    take one snapshot now\n"
+            + "  restore <id>                restore a backup into the FTL folder\n"
+            + "  rollback                    undo the last restore\n"
+            + "  list [QUERY]                list backups, newest first, e.g. list sector=7 hull>15\n"
+            + "  prune [--keep N]            apply the retention policy if enabled, or keep only the newest N backups\n"
+            + "  profiles                    list the configured profiles";
+
+    private FTLAutosaveCli() {
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int status;
+        try {
+            status = run(args, System.out, System.err);
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.INFO, "Command failed: {0}", e.getMessage());
+            System.err.println("Error: " + e.getMessage());
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) throws IOException {
+        if (args.length == 0) {
+            err.println(USAGE);
+            return 2;
+        }
+        String command = args[0];
+        if (!isCommand(command)) {
+            err.println("Unknown command: " + command);
+            err.println(USAGE);
+            return 2;
+        }
+        ConfigStore mainConfig = new ConfigStore(Profile.defaultConfigFile(), 500);
+        List<Profile> profiles = Profile.loadAll(mainConfig);
+        String profileName = stringOption(args, "--profile", null);
+        if (profileName != null && Profile.find(profiles, profileName) == null) {
+            err.println("No such profile: " + profileName);
+            return 1;
+        }
+        if ("profiles".equals(command)) {
+            for (Profile profile : profiles) {
+                out.println(profile);
+            }
+            return 0;
+        }
+        if ("watch".equals(command)) {
+            List<Profile> watched = profileName == null ? profiles : List.of(Profile.find(profiles, profileName));
+            return watch(mainConfig, watched, intOption(args, "--interval", mainConfig.getInt("interval", 5)));
+        }
+        Profile profile = Profile.find(profiles, profileName == null ? Profile.DEFAULT : profileName);
+        try (SnapshotScheduler scheduler = SnapshotScheduler.fromConfig(mainConfig);
+             SnapshotEngine engine = new SnapshotEngine(profile, scheduler, Runnable::run)) {
+            engine.ensureFoldersExist();
+            if (engine.hasFolderImport()) {
+                engine.run("import", engine::importFolderBackups);
+            }
+            switch (command) {
+                case "snapshot":
+                    engine.run("snapshot", engine::snapshot);
+                    out.println(engine.getCatalog().latest());
+                    return 0;
+                case "restore":
+                    return restore(engine, args, out, err);
+                case "rollback":
+                    engine.run("restore", progress -> engine.rollbackRestore());
+                    out.println("Rolled back the last restore");
+                    return 0;
+                case "list":
+                    SaveQuery query = SaveQuery.parse(String.join(" ", positional(args)));
+                    for (BackupInfo backup : engine.getSaveIndex().search(engine.getCatalog().newestFirst(), query)) {
+                        SaveMetadata metadata = engine.getSaveIndex().get(backup.getId());
+                        out.println(backup.getId() + "\t" + backup.getCreated() + "\t" + backup.getFileCount() + " files\t" + backup.getSize() + " bytes"
+                                + (metadata == null ? "" : "\t" + metadata));
+                    }
+                    return 0;
+                default:
+                    int keep = intOption(args, "--keep", 0);
+                    List<String> pruned = keep > 0 ? engine.prune(keep) : engine.pruneExpired();
+                    for (String backupId : pruned) {
+                        out.println("Deleted " + backupId);
+                    }
+                    return 0;
+            }
+        }
+    }
+
+    private static boolean isCommand(String command) {
+        return "watch".equals(command) || "snapshot".equals(command) || "restore".equals(command) || "rollback".equals(command)
+                || "list".equals(command) || "prune".equals(command) || "profiles".equals(command);
+    }
+
+    private static int watch(ConfigStore mainConfig, List<Profile> profiles, int intervalMinutes) {
+        SnapshotScheduler scheduler = SnapshotScheduler.fromConfig(mainConfig);
+        List<SnapshotEngine> engines = new ArrayList<>();
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (SnapshotEngine engine : engines) {
+                engine.close();
+            }
+            scheduler.close();
+            stopped.countDown();
+        }, "ftl-cli-stop"));
+        for (Profile profile : profiles) {
+            SnapshotEngine engine = new SnapshotEngine(profile, scheduler, Runnable::run);
+            engines.add(engine);
+            engine.ensureFoldersExist();
+            if (engine.hasFolderImport()) {
+                engine.submit("import", "Import folder backups into " + profile.getName(), engine::importFolderBackups, new IoListener() {
+                    @Override
+                    public void onProgress(int done, int total) {
+                        logger.log(Level.INFO, "Importing folder backups of {0}: {1}/{2}", new Object[]{profile.getName(), done, total});
+                    }
+
+                    @Override
+                    public void onFinished(boolean cancelled, Exception failure) {
+                        if (failure != null) {
+                            logger.log(Level.INFO, "Import of {0} failed: {1}", new Object[]{profile.getName(), failure.getMessage()});
+                        }
+                    }
+                });
+            }
+            engine.submitInitialSnapshot();
+            engine.startAutosave(Math.max(1, intervalMinutes), new IoListener() {
+                @Override
+                public void onProgress(int done, int total) {
+                    // progress is not reported in watch mode
+                }
+
+                @Override
+                public void onFinished(boolean cancelled, Exception failure) {
+                    if (failure != null) {
+                        logger.log(Level.INFO, "Snapshot of {0} failed: {1}", new Object[]{profile.getName(), failure.getMessage()});
+                    }
+                }
+            });
+        }
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+
+    private static int restore(SnapshotEngine engine, String[] args, PrintStream out, PrintStream err) throws IOException {
+        List<String> positional = positional(args);
+        if (positional.isEmpty()) {
+            err.println(USAGE);
+            return 2;
+        }
+        String backupId = positional.get(0);
+        if (engine.getCatalog().get(backupId) == null) {
+            err.println("No such backup: " + backupId);
+            return 1;
+        }
+        engine.run("restore", progress -> engine.restoreBackup(backupId, progress));
+        out.println("Restored " + backupId);
+        return 0;
+    }
+
+    private static List<String> positional(String[] args) {
+        List<String> positional = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                i++;
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        return positional;
+    }
+
+    private static String stringOption(String[] args, String name, String defaultValue) {
+        for (int i = 1; i + 1 < args.length; i++) {
+            if (name.equals(args[i])) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+
+    private static int intOption(String[] args, String name, int defaultValue) {
+        for (int i = 1; i + 1 < args.length; i++) {
+            if (name.equals(args[i])) {
+                return Integer.parseInt(args[i + 1]);
+            }
+        }
+        return defaultValue;
+    }
+}
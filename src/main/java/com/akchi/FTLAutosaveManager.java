@@ -7,13 +7,18 @@ import javax.sound.sampled.Clip;
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.geom.RoundRectangle2D;
-import java.awt.image.BufferedImage;
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -21,12 +26,15 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.nio.file.*;
 import java.util.*;
-import java.util.Timer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 public class FTLAutosaveManager extends JFrame {
     private static final long serialVersionUID = 1L;
@@ -36,28 +44,46 @@ public class FTLAutosaveManager extends JFrame {
     private final JButton playButton;
     private final JButton restartButton;
     private final JButton restoreButton;
-    private final JComboBox<String> backupDropdown;
+    private transient BackupTimelineModel timelineModel;
+    private final JList<BackupTimelineModel.Row> backupTimeline;
+    private final JScrollPane timelineScroll;
+    private final JTextField backupFilter;
     private final JButton cancelButton;
-
-    private final String userHome = System.getProperty("user.home");
-    private final File autosaveConfigFile = new File(userHome, "AppData/Roaming/FTLAutoSaveManager/autosaveConfig.json");
-    private final File ftlFolder = new File(userHome, "Documents/My Games/FasterThanLight");
-    private final File autosaveFolder = new File(userHome, "Documents/My Games/autosave");
-    private final File backupFolder = new File(userHome, "Documents/My Games/backup");
+    private final JProgressBar progressBar;
+    private final JLabel statsLabel;
 
     private static final String CLICK_SOUND = "click.wav";
     private static final String RESTORE_SOUND = "restore.wav";
     private static final String CANCEL_SOUND = "cancel.wav";
     private static final String INTERVAL_STRING = "interval";
     private static final String SHORTCUT_PATH = "shortcut_path";
+    private static final String SHORTCUT_TARGET = "shortcut_target";
+    private static final String SHORTCUT_MTIME = "shortcut_mtime";
     private static final String ERROR_STRING= "Error";
+    private static final long LAUNCHER_EXIT_SECONDS = 15;
+    private static final String FTL_EXECUTABLE = "FTLGame.exe";
 
-    private final Timer backupTimer = new Timer(true);
+    private final transient long startupNanos = System.nanoTime();
     private final Map<String, Clip> soundMap = new HashMap<>();
-
-
-    public FTLAutosaveManager() throws IOException, FontFormatException {
-        preloadSounds();
+    private final transient Map<String, CompletableFuture<byte[]>> soundData = new HashMap<>();
+    private transient SnapshotEngine engine;
+    private transient ConfigStore configStore;
+    private transient BackupCatalog backupCatalog;
+    private transient IoProgress runningRestore;
+    private transient ProcessHandle gameProcess;
+    private transient javax.swing.Timer gameSearch;
+
+
+    public FTLAutosaveManager() {
+        ExecutorService resourceLoader = Executors.newFixedThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "ftl-resource-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (String soundFileName : List.of(RESTORE_SOUND, CLICK_SOUND, CANCEL_SOUND)) {
+            soundData.put(soundFileName, CompletableFuture.supplyAsync(() -> readSound(soundFileName), resourceLoader));
+        }
+        startEngine(resourceLoader);
         setTitle("FTL Autosave Manager");
         setUndecorated(true);
         setSize(640, 360);
@@ -65,31 +91,28 @@ public class FTLAutosaveManager extends JFrame {
         setShape(new RoundRectangle2D.Double(0, 0, getWidth(), getHeight(), 30, 30));
 
         try {
-            setIconImage(new ImageIcon(Objects.requireNonNull(getClass().getClassLoader().getResource("icon.png"))).getImage());
+            setIconImage(Toolkit.getDefaultToolkit().getImage(Objects.requireNonNull(getClass().getClassLoader().getResource("icon.png"))));
         } catch (Exception e) {
             logger.info("Icon not found.");
         }
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                logStartupPhase("first paint");
+            }
+        });
 
         JLayeredPane layeredPane = new JLayeredPane();
         setContentPane(layeredPane);
 
         JLabel backgroundLabel = new JLabel();
         backgroundLabel.setBounds(0, 0, getWidth(), getHeight());
-        try {
-            BufferedImage bgImage = ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/bg_small.jpg")));
-            backgroundLabel.setIcon(new ImageIcon(bgImage));
-        } catch (IOException e) {
-            logger.info(e.getMessage());
-        }
+        loadInBackground(resourceLoader, "background image",
+                () -> new ImageIcon(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/bg_small.jpg")))),
+                backgroundLabel::setIcon);
         layeredPane.add(backgroundLabel, JLayeredPane.DEFAULT_LAYER);
 
-        Font customFont = Font.createFont(Font.TRUETYPE_FONT, Objects.requireNonNull(getClass().getResourceAsStream("/C&C Red Alert [INET].ttf"))).deriveFont(18f);
-        try {
-            GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-            ge.registerFont(customFont);
-        } catch (Exception e) {
-            logger.info(e.getMessage());
-        }
+        Font customFont = new Font(Font.DIALOG, Font.PLAIN, 18);
 
         JPanel controlPanel = new JPanel();
         controlPanel.setLayout(new GridBagLayout());
@@ -105,10 +128,9 @@ public class FTLAutosaveManager extends JFrame {
         gbc.gridy = 0;
         controlPanel.add(intervalLabel, gbc);
 
-        int savedInterval = loadIntervalFromConfig();
-        intervalSpinner = new JSpinner(new SpinnerNumberModel(savedInterval, 1, 999, 1));
+        intervalSpinner = new JSpinner(new SpinnerNumberModel(5, 1, 999, 1));
         intervalSpinner.setFont(customFont);
-        JSpinner.NumberEditor editor = new JSpinner.NumberEditor(intervalSpinner, "# '" + (savedInterval == 1 ? "minute" : "minutes") + "'");
+        JSpinner.NumberEditor editor = new JSpinner.NumberEditor(intervalSpinner, "# 'minutes'");
         intervalSpinner.setEditor(editor);
 
         intervalSpinner.addChangeListener(new ChangeListener() {
@@ -165,13 +187,37 @@ public class FTLAutosaveManager extends JFrame {
         gbc.gridy = 4;
         controlPanel.add(restoreButton, gbc);
 
-        backupDropdown = new JComboBox<>();
-        backupDropdown.setFont(customFont);
-        backupDropdown.setVisible(false);
+        backupFilter = new JTextField();
+        backupFilter.setFont(customFont.deriveFont(14f));
+        backupFilter.setVisible(false);
+        backupFilter.setToolTipText("<html>Filter backups, e.g. <b>sector=7 hull&gt;15</b><br>"
+                + "Fields: sector, hull, scrap, crew, difficulty (easy, normal, hard)<br>"
+                + "Add <b>sort:hull</b> to sort by a field, other words match the ship name</html>");
+        backupFilter.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filterBackups();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterBackups();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filterBackups();
+            }
+        });
+        controlPanel.add(backupFilter, gbc);
 
         gbc.gridx = 0;
         gbc.gridy = 5;
-        controlPanel.add(backupDropdown, gbc);
+        progressBar = new JProgressBar();
+        progressBar.setVisible(false);
+        progressBar.setForeground(Color.LIGHT_GRAY);
+        progressBar.setBackground(Color.DARK_GRAY);
+        controlPanel.add(progressBar, gbc);
 
         cancelButton = new JButton("Cancel backup");
         cancelButton.setFont(customFont);
@@ -180,7 +226,11 @@ public class FTLAutosaveManager extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 playSound(CANCEL_SOUND);
-                hideRestoreUI();
+                if (runningRestore != null) {
+                    runningRestore.cancel();
+                } else {
+                    hideRestoreUI();
+                }
             }
         });
 
@@ -194,6 +244,9 @@ public class FTLAutosaveManager extends JFrame {
         exitButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
+                if (configStore != null) {
+                    configStore.flush();
+                }
                 System.exit(0);
             }
         });
@@ -205,6 +258,7 @@ public class FTLAutosaveManager extends JFrame {
         controlPanel.setOpaque(false);
         controlPanel.setBounds(440, 0, 200, 350);
         layeredPane.add(controlPanel, JLayeredPane.PALETTE_LAYER);
+        loadInBackground(resourceLoader, "font", this::loadCustomFont, font -> applyCustomFont(controlPanel, font));
 
         styleButton(playButton);
         styleButton(restartButton);
@@ -212,40 +266,161 @@ public class FTLAutosaveManager extends JFrame {
         styleButton(cancelButton);
         styleButton(exitButton);
 
-        backupDropdown.setBackground(Color.DARK_GRAY);
-        backupDropdown.setForeground(Color.WHITE);
-        backupDropdown.setOpaque(true);
+        backupFilter.setBackground(Color.DARK_GRAY);
+        backupFilter.setForeground(Color.WHITE);
+        backupFilter.setCaretColor(Color.WHITE);
 
+        intervalSpinner.setEnabled(false);
+        playButton.setEnabled(false);
+        restartButton.setEnabled(false);
+        restoreButton.setEnabled(false);
         updateButtonColors();
-        updateButtonStates();
-        ensureFoldersExist();
         cancelButton.setForeground(new Color(132, 119, 119));
         cancelButton.setBackground(Color.lightGray);
 
-        addClickableImage();
+        backupTimeline = new JList<>();
+        backupTimeline.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        backupTimeline.setFixedCellHeight(38);
+        backupTimeline.setFixedCellWidth(370);
+        backupTimeline.setBackground(Color.DARK_GRAY);
+        backupTimeline.setForeground(Color.WHITE);
+        backupTimeline.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                BackupTimelineModel.Row row = (BackupTimelineModel.Row) value;
+                String text = "<html>" + row.getId() + "<br><font color='#b0b0b0' size='-1'>" + row.getDetails() + "</font></html>";
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        backupTimeline.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = backupTimeline.locationToIndex(e.getPoint());
+                if (index >= 0 && backupTimeline.getCellBounds(index, index).contains(e.getPoint())) {
+                    restoreTimelineRow(index);
+                }
+            }
+        });
+        backupTimeline.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ENTER && backupTimeline.getSelectedIndex() >= 0) {
+                    restoreTimelineRow(backupTimeline.getSelectedIndex());
+                }
+            }
+        });
+        timelineScroll = new JScrollPane(backupTimeline);
+        timelineScroll.setBounds(30, 30, 390, 260);
+        timelineScroll.setBorder(BorderFactory.createLineBorder(Color.GRAY));
+        timelineScroll.getViewport().setBackground(Color.DARK_GRAY);
+        timelineScroll.setVisible(false);
+        layeredPane.add(timelineScroll, JLayeredPane.PALETTE_LAYER);
+
+        statsLabel = new JLabel();
+        statsLabel.setForeground(Color.LIGHT_GRAY);
+        statsLabel.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
+        statsLabel.setBounds(70, getHeight() - 35, 360, 20);
+        layeredPane.add(statsLabel, JLayeredPane.PALETTE_LAYER);
+
+        addClickableImage(resourceLoader);
         centerWindow();
+        resourceLoader.shutdown();
+        logStartupPhase("window built");
+    }
+
+    private void startEngine(Executor loader) {
+        loader.execute(() -> {
+            try {
+                SnapshotEngine loaded = new SnapshotEngine(SwingUtilities::invokeLater);
+                loaded.ensureFoldersExist();
+                boolean folderImport = loaded.hasFolderImport();
+                SwingUtilities.invokeLater(() -> engineReady(loaded, folderImport));
+            } catch (RuntimeException e) {
+                logger.log(Level.INFO, "Could not start the snapshot engine: {0}", e.getMessage());
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                        "Could not open the backup folder. Reason: " + e.getMessage(), ERROR_STRING, JOptionPane.ERROR_MESSAGE));
+            }
+        });
+    }
+
+    private void engineReady(SnapshotEngine loaded, boolean folderImport) {
+        engine = loaded;
+        configStore = loaded.getConfig();
+        backupCatalog = loaded.getCatalog();
+        Runtime.getRuntime().addShutdownHook(new Thread(configStore::flush, "ftl-config-flush"));
+        timelineModel = new BackupTimelineModel(loaded.getSaveIndex());
+        backupTimeline.setModel(timelineModel);
+        intervalSpinner.setValue(loadIntervalFromConfig());
+        intervalSpinner.setEnabled(true);
+        playButton.setEnabled(true);
+        updateButtonStates();
+        logStartupPhase("engine ready");
+        if (folderImport) {
+            runRestore("import", "Import folder backups", loaded::importFolderBackups);
+        }
+    }
+
+    private void logStartupPhase(String phase) {
+        logger.log(Level.INFO, "Startup: {0} after {1} ms", new Object[]{phase, (System.nanoTime() - startupNanos) / 1_000_000});
+    }
+
+    private <T> void loadInBackground(Executor loader, String name, ResourceLoad<T> load, Consumer<T> onLoaded) {
+        loader.execute(() -> {
+            try {
+                T resource = load.load();
+                SwingUtilities.invokeLater(() -> {
+                    onLoaded.accept(resource);
+                    logStartupPhase(name + " loaded");
+                });
+            } catch (Exception e) {
+                logger.log(Level.INFO, "Could not load {0}: {1}", new Object[]{name, e.getMessage()});
+            }
+        });
+    }
+
+    private Font loadCustomFont() throws IOException, FontFormatException {
+        try (InputStream fontStream = Objects.requireNonNull(getClass().getResourceAsStream("/C&C Red Alert [INET].ttf"))) {
+            Font font = Font.createFont(Font.TRUETYPE_FONT, fontStream);
+            GraphicsEnvironment.getLocalGraphicsEnvironment().registerFont(font);
+            return font;
+        }
+    }
+
+    private void applyCustomFont(JPanel controlPanel, Font font) {
+        for (Component component : controlPanel.getComponents()) {
+            component.setFont(font.deriveFont(component.getFont().getSize2D()));
+        }
+        controlPanel.revalidate();
+        controlPanel.repaint();
     }
 
-    private void preloadSounds() {
-        preloadSound(RESTORE_SOUND);
-        preloadSound(CLICK_SOUND);
-        preloadSound(CANCEL_SOUND);
+    private byte[] readSound(String soundFileName) {
+        try (InputStream audioSrc = Objects.requireNonNull(getClass().getResourceAsStream("/" + soundFileName))) {
+            return audioSrc.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-    private void preloadSound(String soundFileName) {
-        try (InputStream audioSrc = getClass().getResourceAsStream("/" + soundFileName);
-             InputStream bufferedIn = new BufferedInputStream(audioSrc);
-             AudioInputStream audioStream = AudioSystem.getAudioInputStream(bufferedIn)) {
+    private Clip openSound(String soundFileName) {
+        try (AudioInputStream audioStream = AudioSystem.getAudioInputStream(new ByteArrayInputStream(soundData.get(soundFileName).getNow(null)))) {
             Clip clip = AudioSystem.getClip();
             clip.open(audioStream);
             soundMap.put(soundFileName, clip);
+            return clip;
         } catch (Exception e) {
             logger.info(e.getMessage());
+            return null;
         }
     }
 
     private void playSound(String soundFileName) {
-        Clip clip = soundMap.get(soundFileName);
+        CompletableFuture<byte[]> data = soundData.get(soundFileName);
+        if (!soundMap.containsKey(soundFileName) && data != null && !data.isDone()) {
+            logger.log(Level.FINE, "Sound still loading, skipping: {0}", soundFileName);
+            return;
+        }
+        Clip clip = soundMap.containsKey(soundFileName) ? soundMap.get(soundFileName) : openSound(soundFileName);
         if (clip != null) {
             if (clip.isRunning()) {
                 clip.stop();
@@ -259,14 +434,11 @@ public class FTLAutosaveManager extends JFrame {
 
 
 
-    private void addClickableImage() {
+    private void addClickableImage(Executor resourceLoader) {
         JLabel linkLabel = new JLabel();
-        try {
-            ImageIcon linkIcon = new ImageIcon(Objects.requireNonNull(getClass().getClassLoader().getResource("github.png")));
-            linkLabel.setIcon(linkIcon);
-        } catch (Exception e) {
-            logger.info(e.getMessage());
-        }
+        loadInBackground(resourceLoader, "github icon",
+                () -> new ImageIcon(Objects.requireNonNull(getClass().getClassLoader().getResource("github.png"))),
+                linkLabel::setIcon);
 
         linkLabel.setBounds(15, getHeight() - 50, 50, 50);
         linkLabel.setCursor(new Cursor(Cursor.HAND_CURSOR));
@@ -286,76 +458,110 @@ public class FTLAutosaveManager extends JFrame {
     }
 
     private void saveIntervalToConfig(int interval) {
-        JsonObject json = new JsonObject();
-        if (autosaveConfigFile.exists()) {
-            try (FileReader reader = new FileReader(autosaveConfigFile)) {
-                json = JsonParser.parseReader(reader).getAsJsonObject();
-            } catch (IOException | IllegalStateException e) {
-                logger.info(e.getMessage());
-            }
-        }
-        json.addProperty(INTERVAL_STRING, interval);
-
-        try (FileWriter writer = new FileWriter(autosaveConfigFile)) {
-            writer.write(json.toString());
-        } catch (IOException e) {
-            logger.info(e.getMessage());
-        }
+        configStore.set(INTERVAL_STRING, interval);
     }
 
     private int loadIntervalFromConfig() {
-        if (autosaveConfigFile.exists()) {
-            try (FileReader reader = new FileReader(autosaveConfigFile)) {
-                JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
-                if (json != null && json.has(INTERVAL_STRING) && !json.get(INTERVAL_STRING).isJsonNull()) {
-                    return json.get(INTERVAL_STRING).getAsInt();
-                }
-            } catch (IOException | IllegalStateException e) {
-                logger.info(e.getMessage());
-            }
-        }
-        return 5;
+        return configStore.getInt(INTERVAL_STRING, 5);
     }
 
     private void showRestoreUI() {
-        File[] backupFolders = backupFolder.listFiles(File::isDirectory);
-        if (backupFolders != null && backupFolders.length > 0) {
-            backupDropdown.removeAllItems();
-            backupDropdown.addItem("Select the backup");
-            Arrays.sort(backupFolders, (a, b) -> b.getName().compareTo(a.getName()));
-
-            for (File folder : backupFolders) {
-                backupDropdown.addItem(folder.getName());
-            }
-
-            backupDropdown.setVisible(true);
+        List<BackupInfo> backups = backupCatalog.newestFirst();
+        if (!backups.isEmpty()) {
+            long started = System.nanoTime();
+            backupFilter.setText("");
+            filterBackups();
+            backupTimeline.clearSelection();
+            timelineScroll.getVerticalScrollBar().setValue(0);
+
+            restoreButton.setVisible(false);
+            backupFilter.setVisible(true);
+            timelineScroll.setVisible(true);
             cancelButton.setVisible(true);
-            backupDropdown.addActionListener(new ActionListener() {
-                @Override
-                public void actionPerformed(ActionEvent e) {
-                    String selectedFolder = (String) backupDropdown.getSelectedItem();
-                    if (selectedFolder != null && !"Select the backup".equals(selectedFolder)) {
-                        restoreSelectedBackup(selectedFolder);
-                        playSound(RESTORE_SOUND);
-                        updateButtonStates();
-                    }
-                }
-            });
+            logger.log(Level.FINE, "Opened the restore timeline with {0} backups in {1} ms",
+                    new Object[]{backups.size(), (System.nanoTime() - started) / 1_000_000});
         } else {
             JOptionPane.showMessageDialog(this, "No backups available.", "Info", JOptionPane.INFORMATION_MESSAGE);
         }
     }
 
     private void hideRestoreUI() {
-        backupDropdown.setVisible(false);
+        backupFilter.setVisible(false);
+        timelineScroll.setVisible(false);
         cancelButton.setVisible(false);
+        restoreButton.setVisible(true);
+    }
+
+    private void filterBackups() {
+        List<BackupInfo> matches;
+        try {
+            matches = engine.getSaveIndex().search(backupCatalog.newestFirst(), SaveQuery.parse(backupFilter.getText()));
+            backupFilter.setForeground(Color.WHITE);
+        } catch (IllegalArgumentException e) {
+            backupFilter.setForeground(Color.PINK);
+            return;
+        }
+        timelineModel.setBackups(matches);
     }
 
-    private void restoreSelectedBackup(String folderName) {
-        File selectedBackupFolder = new File(backupFolder, folderName);
-        copyFolder(selectedBackupFolder, ftlFolder);
-        logger.log(Level.INFO, "Restored backup from {0}", folderName);
+    private void restoreTimelineRow(int index) {
+        if (!timelineScroll.isVisible() || runningRestore != null) {
+            return;
+        }
+        restoreSelectedBackup(timelineModel.getElementAt(index).getId());
+        playSound(RESTORE_SOUND);
+    }
+
+    private void restoreSelectedBackup(String backupId) {
         hideRestoreUI();
+        runRestore("restore", "Restore " + backupId, progress -> engine.restoreBackup(backupId, progress));
+    }
+
+    private void runRestore(String operation, String label, SnapshotExecutor.IoTask task) {
+        if (runningRestore != null) {
+            logger.log(Level.INFO, "{0} ignored, a restore is already running.", label);
+            return;
+        }
+        playButton.setEnabled(false);
+        restartButton.setEnabled(false);
+        restoreButton.setEnabled(false);
+        updateButtonColors();
+        progressBar.setValue(0);
+        progressBar.setVisible(true);
+        cancelButton.setText("Cancel " + operation);
+        cancelButton.setVisible(true);
+        runningRestore = engine.submit(operation, label, task, new IoListener() {
+            @Override
+            public void onProgress(int done, int total) {
+                progressBar.setMaximum(Math.max(total, 1));
+                progressBar.setValue(done);
+            }
+
+            @Override
+            public void onFinished(boolean cancelled, Exception failure) {
+                runningRestore = null;
+                updateStats();
+                progressBar.setVisible(false);
+                cancelButton.setVisible(false);
+                cancelButton.setText("Cancel backup");
+                playButton.setEnabled(true);
+                updateButtonStates();
+                if (failure != null) {
+                    JOptionPane.showMessageDialog(FTLAutosaveManager.this, label + " failed. Reason: " + failure.getMessage(), ERROR_STRING, JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+    }
+
+    private void updateStats() {
+        statsLabel.setText(engine.getMetrics().summary());
+        StringBuilder details = new StringBuilder("<html>");
+        for (OperationMetrics metrics : engine.getMetrics().getOperations()) {
+            details.append(String.format("%s: %d runs, mean %.0f ms, max %d ms, queue %.0f ms, %d copied / %d skipped, %d KB read / %d KB written<br>",
+                    metrics.getOperation(), metrics.getCount(), metrics.getMeanMillis(), metrics.getMaxMillis(), metrics.getMeanQueueWaitMillis(),
+                    metrics.getFilesCopied(), metrics.getFilesSkipped(), metrics.getBytesRead() / 1024, metrics.getBytesWritten() / 1024));
+        }
+        statsLabel.setToolTipText(details.append("</html>").toString());
     }
 
     private void styleButton(JButton button) {
@@ -383,17 +589,8 @@ public class FTLAutosaveManager extends JFrame {
     }
 
     private String getShortcutPath() {
-        JsonObject json = new JsonObject();
-        if (autosaveConfigFile.exists()) {
-            try (FileReader reader = new FileReader(autosaveConfigFile)) {
-                json = JsonParser.parseReader(reader).getAsJsonObject();
-            } catch (IOException | IllegalStateException e) {
-                logger.info(e.getMessage());
-            }
-        }
-
-        if (json.has(SHORTCUT_PATH) && !json.get(SHORTCUT_PATH).isJsonNull()) {
-            String shortcutPath = json.get(SHORTCUT_PATH).getAsString();
+        if (configStore.has(SHORTCUT_PATH)) {
+            String shortcutPath = configStore.getString(SHORTCUT_PATH, null);
             if (new File(shortcutPath).exists()) {
                 return shortcutPath;
             }
@@ -415,57 +612,41 @@ public class FTLAutosaveManager extends JFrame {
         int result = fileChooser.showOpenDialog(this);
         if (result == JFileChooser.APPROVE_OPTION) {
             String shortcutPath = fileChooser.getSelectedFile().getAbsolutePath();
-            json.addProperty(SHORTCUT_PATH, shortcutPath);
-            try (FileWriter writer = new FileWriter(autosaveConfigFile)) {
-                writer.write(json.toString());
-            } catch (IOException e) {
-                logger.info(e.getMessage());
-            }
+            configStore.set(SHORTCUT_PATH, shortcutPath);
+            configStore.remove(SHORTCUT_TARGET);
             return shortcutPath;
         }
         return null;
     }
 
 
-    private void ensureFoldersExist() {
-        if (!autosaveFolder.exists()) {
-            autosaveFolder.mkdirs();
-        }
-        if (!backupFolder.exists()) {
-            backupFolder.mkdirs();
-        }
-        if (!autosaveConfigFile.getParentFile().exists()) {
-            logger.info("Creating directory: " + autosaveConfigFile.getParentFile().getAbsolutePath());
-            autosaveConfigFile.getParentFile().mkdirs();
-        }
-
-        if (!autosaveConfigFile.exists()) {
-            try {
-                if (autosaveConfigFile.createNewFile()) {
-                    logger.info("Created file: " + autosaveConfigFile.getAbsolutePath());
-                } else {
-                    logger.info("File already exists: " + autosaveConfigFile.getAbsolutePath());
-                }
-            } catch (IOException e) {
-                logger.info(e.getMessage());
-            }
-        }
-    }
-
     private void updateButtonStates() {
-        restartButton.setEnabled(checkContinueSav(autosaveFolder));
-        File[] folders = backupFolder.listFiles(File::isDirectory);
-        restoreButton.setEnabled(folders != null && folders.length > 0);
+        restartButton.setEnabled(engine.hasAutosave());
+        restoreButton.setEnabled(!backupCatalog.isEmpty());
         restartButton.setToolTipText(restartButton.isEnabled() ? null : "Autosave folder is empty");
         restoreButton.setToolTipText(restoreButton.isEnabled() ? null : "Backup folder is empty");
         updateButtonColors();
     }
 
-    private boolean checkContinueSav(File folderPath) {
-        return new File(folderPath, "continue.sav").isFile();
+    private String resolveShortcutTarget(String shortcutPath) {
+        long shortcutMtime = new File(shortcutPath).lastModified();
+        if (configStore.has(SHORTCUT_TARGET) && configStore.getLong(SHORTCUT_MTIME, -1) == shortcutMtime) {
+            return configStore.getString(SHORTCUT_TARGET, null);
+        }
+        String targetPath = parseShortcutTarget(shortcutPath);
+        if (targetPath != null) {
+            configStore.set(SHORTCUT_TARGET, targetPath);
+            configStore.set(SHORTCUT_MTIME, shortcutMtime);
+        }
+        return targetPath;
     }
 
-    private String resolveShortcutTarget(String shortcutPath) {
+    private String parseShortcutTarget(String shortcutPath) {
+        try {
+            return ShellLinkParser.resolveTarget(new File(shortcutPath).toPath());
+        } catch (IOException e) {
+            logger.log(Level.INFO, "Could not parse shortcut, asking PowerShell: {0}", e.getMessage());
+        }
         try {
             String command = String.format("powershell -Command \"(New-Object -ComObject WScript.Shell).CreateShortcut('%s').TargetPath\"", shortcutPath);
             Process process = Runtime.getRuntime().exec(command);
@@ -481,7 +662,11 @@ public class FTLAutosaveManager extends JFrame {
     }
 
     private void play() {
-        ensureFoldersExist();
+        if (gameSearch != null || gameProcess != null && gameProcess.isAlive()) {
+            JOptionPane.showMessageDialog(this, "FTL is already running.", "Info", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        engine.ensureFoldersExist();
         String shortcutPath = getShortcutPath();
         if (shortcutPath == null) {
             JOptionPane.showMessageDialog(this, "FTL shortcut not found or not selected.", ERROR_STRING, JOptionPane.ERROR_MESSAGE);
@@ -496,27 +681,24 @@ public class FTLAutosaveManager extends JFrame {
                 return;
             }
 
-            if (!checkContinueSav(autosaveFolder)) {
-                copyFolder(ftlFolder, autosaveFolder);
-            }
-            if (!checkContinueSav(backupFolder)) {
-                copyFolder(ftlFolder, backupFolder);
-            }
-
-            int intervalMinutes = (int) intervalSpinner.getValue();
-            logger.log(Level.INFO, "Backup interval set to {0} minutes.", intervalMinutes);
-            backupTimer.scheduleAtFixedRate(new TimerTask() {
+            Process process = Runtime.getRuntime().exec(targetPath);
+            logger.info("FTL has been launched successfully.");
+            trackGame(process.toHandle(), isGameExecutable(targetPath));
+            engine.submitInitialSnapshot();
+            engine.startAutosave((int) intervalSpinner.getValue(), new IoListener() {
                 @Override
-                public void run() {
-                    copyFolder(ftlFolder, autosaveFolder);
-                    createBackup();
-                    logger.info("Backup and copy operation completed.");
-                    updateButtonStates();
+                public void onProgress(int done, int total) {
+                    // snapshots run silently in the background
                 }
-            }, 0, (long) intervalMinutes * 60 * 1000);
 
-            Runtime.getRuntime().exec(targetPath);
-            logger.info("FTL has been launched successfully.");
+                @Override
+                public void onFinished(boolean cancelled, Exception failure) {
+                    updateStats();
+                    if (runningRestore == null) {
+                        updateButtonStates();
+                    }
+                }
+            });
         } catch (IOException e) {
             logger.info(e.getMessage());
             JOptionPane.showMessageDialog(this, "Failed to run FTL. Reason: " + e.getMessage(), ERROR_STRING, JOptionPane.ERROR_MESSAGE);
@@ -524,76 +706,102 @@ public class FTLAutosaveManager extends JFrame {
         }
     }
 
-    private void createBackup() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd, hh-mm a"));
-        File datedBackupFolder = new File(backupFolder, timestamp);
-
-        if (!datedBackupFolder.exists()) {
-            datedBackupFolder.mkdirs();
-        }
-
-        copyFolder(autosaveFolder, datedBackupFolder);
+    private void trackGame(ProcessHandle process, boolean isGame) {
+        gameProcess = process;
+        process.onExit().thenRun(() -> SwingUtilities.invokeLater(() -> gameExited(process, isGame)));
     }
 
-    private void deleteShortcutPath() {
-        JsonObject json = new JsonObject();
-        if (autosaveConfigFile.exists()) {
-            try (FileReader reader = new FileReader(autosaveConfigFile)) {
-                json = JsonParser.parseReader(reader).getAsJsonObject();
-            } catch (IOException | IllegalStateException e) {
-                logger.info(e.getMessage());
-            }
+    private void gameExited(ProcessHandle process, boolean isGame) {
+        if (gameProcess != process) {
+            return;
         }
-        json.remove(SHORTCUT_PATH);
-        try (FileWriter writer = new FileWriter(autosaveConfigFile)) {
-            writer.write(json.toString());
-        } catch (IOException e) {
-            logger.info(e.getMessage());
+        gameProcess = null;
+        if (isGame) {
+            gameStopped();
+            return;
+        }
+        ProcessHandle game = findGameProcess();
+        if (game != null) {
+            logger.log(Level.INFO, "Launcher exited, following FTL process {0}.", game.pid());
+            trackGame(game, true);
+            return;
         }
+        long searchUntil = System.nanoTime() + LAUNCHER_EXIT_SECONDS * 1_000_000_000L;
+        gameSearch = new javax.swing.Timer(1000, null);
+        gameSearch.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ProcessHandle found = findGameProcess();
+                if (found == null && System.nanoTime() < searchUntil) {
+                    return;
+                }
+                gameSearch.stop();
+                gameSearch = null;
+                if (found != null) {
+                    logger.log(Level.INFO, "Launcher exited, following FTL process {0}.", found.pid());
+                    trackGame(found, true);
+                } else {
+                    gameStopped();
+                }
+            }
+        });
+        gameSearch.start();
     }
 
-    private void restart() {
-        copyFolder(autosaveFolder, ftlFolder);
-        logger.info("Restart operation completed successfully.");
+    private ProcessHandle findGameProcess() {
+        long self = ProcessHandle.current().pid();
+        return ProcessHandle.allProcesses()
+                .filter(p -> p.pid() != self && p.isAlive())
+                .filter(p -> p.info().command().map(FTLAutosaveManager::isGameExecutable).orElse(false))
+                .findFirst()
+                .orElse(null);
     }
 
-    private void copyFolder(File sourceFolder, File targetFolder) {
-        try {
-            deleteFolderContents(targetFolder);
-            copyFiles(sourceFolder, targetFolder);
-        } catch (IOException e) {
-            logger.info(e.getMessage());
-        }
+    private static boolean isGameExecutable(String path) {
+        return new File(path).getName().equalsIgnoreCase(FTL_EXECUTABLE);
     }
 
-    private void deleteFolderContents(File folder) throws IOException {
-        Files.walk(folder.toPath())
-                .sorted(Comparator.reverseOrder())
-                .map(Path::toFile)
-                .forEach(File::delete);
+    private void gameStopped() {
+        logger.info("FTL exited, taking a final snapshot.");
+        engine.stopAutosave();
+        engine.submitSnapshot(new IoListener() {
+            @Override
+            public void onProgress(int done, int total) {
+                // the final snapshot runs silently
+            }
+
+            @Override
+            public void onFinished(boolean cancelled, Exception failure) {
+                updateStats();
+                if (runningRestore == null) {
+                    updateButtonStates();
+                }
+            }
+        });
     }
 
-    private void copyFiles(File source, File target) throws IOException {
-        Files.walk(source.toPath())
-                .forEach(sourcePath -> {
-                    Path targetPath = target.toPath().resolve(source.toPath().relativize(sourcePath));
-                    try {
-                        Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
-                    } catch (IOException e) {
-                        logger.info(e.getMessage());
-                    }
-                });
+    private void deleteShortcutPath() {
+        configStore.remove(SHORTCUT_PATH);
+        configStore.remove(SHORTCUT_TARGET);
+        configStore.remove(SHORTCUT_MTIME);
+    }
+
+    private void restart() {
+        runRestore("restart", "Quick restart", engine::quickRestart);
     }
 
     public static void main(String[] args) {
+        if (args.length > 0) {
+            FTLAutosaveCli.main(args);
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
-            FTLAutosaveManager frame = null;
-            try {
-                frame = new FTLAutosaveManager();
-            } catch (IOException | FontFormatException e) {
-                throw new RuntimeException(e);
-            }
+            FTLAutosaveManager frame = new FTLAutosaveManager();
             frame.setVisible(true);
         });
     }
+
+    private interface ResourceLoad<T> {
+        T load() throws Exception;
+    }
 }
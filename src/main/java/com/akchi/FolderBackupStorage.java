@@ -0,0 +1,222 @@
+package com.akchi;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+public class FolderBackupStorage implements BackupStorage {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final File backupFolder;
+    private final SnapshotSync snapshotSync;
+    private final boolean linkUnchanged;
+    private volatile boolean linksSupported = true;
+
+    public FolderBackupStorage(File backupFolder, SnapshotSync snapshotSync) {
+        this(backupFolder, snapshotSync, false);
+    }
+
+    public FolderBackupStorage(File backupFolder, SnapshotSync snapshotSync, boolean linkUnchanged) {
+        this.backupFolder = backupFolder;
+        this.snapshotSync = snapshotSync;
+        this.linkUnchanged = linkUnchanged;
+    }
+
+    @Override
+    public List<String> listBackups() {
+        List<String> backups = new ArrayList<>();
+        File[] folders = backupFolder.listFiles(File::isDirectory);
+        if (folders != null) {
+            for (File folder : folders) {
+                if (!folder.getName().startsWith(".")) {
+                    backups.add(folder.getName());
+                }
+            }
+        }
+        return backups;
+    }
+
+    @Override
+    public BackupInfo createBackup(Path source, String backupId, IoProgress progress) throws IOException {
+        Path datedBackupFolder = backupFolder.toPath().resolve(backupId);
+        Path previousBackupFolder = linkUnchanged && linksSupported ? previousBackup(backupId) : null;
+        if (previousBackupFolder == null || Files.exists(datedBackupFolder)) {
+            Files.createDirectories(datedBackupFolder);
+            snapshotSync.sync(source, datedBackupFolder, progress);
+        } else {
+            createLinkedBackup(source, previousBackupFolder, datedBackupFolder, progress);
+        }
+        return describeBackup(backupId);
+    }
+
+    @Override
+    public BackupInfo describeBackup(String backupId) throws IOException {
+        Path datedBackupFolder = backupFolder.toPath().resolve(backupId);
+        if (!Files.isDirectory(datedBackupFolder)) {
+            throw new IOException("Backup not found: " + backupId);
+        }
+        List<String> lines = new ArrayList<>();
+        long size = 0;
+        try (Stream<Path> paths = Files.walk(datedBackupFolder)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (attrs.isRegularFile()) {
+                    String relative = FileTrees.relativeName(datedBackupFolder, path);
+                    lines.add(relative + "\t" + attrs.size() + "\t" + attrs.lastModifiedTime().toMillis());
+                    size += attrs.size();
+                }
+            }
+        }
+        BasicFileAttributes folderAttrs = Files.readAttributes(datedBackupFolder, BasicFileAttributes.class);
+        return new BackupInfo(backupId, folderAttrs.creationTime().toInstant(), size, lines.size(), FileHashing.sha256(lines));
+    }
+
+    @Override
+    public BackupManifest describeFiles(String backupId) throws IOException {
+        Path datedBackupFolder = backupFolder.toPath().resolve(backupId);
+        if (!Files.isDirectory(datedBackupFolder)) {
+            throw new IOException("Backup not found: " + backupId);
+        }
+        BackupManifest files = new BackupManifest();
+        try (Stream<Path> paths = Files.walk(datedBackupFolder)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (attrs.isRegularFile()) {
+                    files.add(FileTrees.relativeName(datedBackupFolder, path), attrs.size(), attrs.lastModifiedTime().toMillis(), null);
+                }
+            }
+        }
+        return files;
+    }
+
+    private void createLinkedBackup(Path source, Path previousBackupFolder, Path datedBackupFolder, IoProgress progress) throws IOException {
+        Path staging = datedBackupFolder.resolveSibling("." + datedBackupFolder.getFileName() + ".tmp");
+        FileTrees.deleteRecursively(staging);
+        int linked = 0;
+        int copied = 0;
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path sourcePath : (Iterable<Path>) paths.sorted()::iterator) {
+                Path relative = source.relativize(sourcePath);
+                Path targetPath = staging.resolve(relative.toString());
+                BasicFileAttributes attrs = Files.readAttributes(sourcePath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (attrs.isDirectory()) {
+                    Files.createDirectories(targetPath);
+                    continue;
+                }
+                Path previousPath = previousBackupFolder.resolve(relative.toString());
+                if (linksSupported && isIdentical(sourcePath, attrs, previousPath) && tryLink(targetPath, previousPath)) {
+                    linked++;
+                    progress.recordSkipped(0);
+                } else {
+                    ParallelCopier.copyFile(sourcePath, targetPath, progress);
+                    copied++;
+                    progress.recordCopied(attrs.size(), attrs.size());
+                }
+            }
+        }
+        Files.move(staging, datedBackupFolder, StandardCopyOption.ATOMIC_MOVE);
+        logger.log(Level.INFO, "Backup {0}: {1} linked, {2} copied", new Object[]{datedBackupFolder.getFileName(), linked, copied});
+    }
+
+    @Override
+    public void deleteBackups(Collection<String> backupIds) throws IOException {
+        File[] leftovers = backupFolder.listFiles(file -> file.isDirectory() && file.getName().startsWith(".") && file.getName().endsWith(".deleting"));
+        if (leftovers != null) {
+            for (File leftover : leftovers) {
+                FileTrees.deleteRecursively(leftover.toPath());
+            }
+        }
+        for (String backupId : backupIds) {
+            Path datedBackupFolder = backupFolder.toPath().resolve(backupId);
+            if (!Files.isDirectory(datedBackupFolder)) {
+                continue;
+            }
+            Path trash = datedBackupFolder.resolveSibling("." + backupId + ".deleting");
+            FileTrees.deleteRecursively(trash);
+            Files.move(datedBackupFolder, trash, StandardCopyOption.ATOMIC_MOVE);
+            FileTrees.deleteRecursively(trash);
+        }
+    }
+
+    private boolean tryLink(Path link, Path existing) {
+        try {
+            Files.createLink(link, existing);
+            return true;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            linksSupported = false;
+            logger.log(Level.INFO, "Hard links unavailable, falling back to copies: {0}", e.getMessage());
+            return false;
+        } catch (IOException e) {
+            logger.info(e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isIdentical(Path sourcePath, BasicFileAttributes attrs, Path previousPath) throws IOException {
+        if (!Files.isRegularFile(previousPath, LinkOption.NOFOLLOW_LINKS) || Files.size(previousPath) != attrs.size()) {
+            return false;
+        }
+        if (Files.getLastModifiedTime(previousPath).equals(attrs.lastModifiedTime())) {
+            return true;
+        }
+        return sameContent(sourcePath, previousPath);
+    }
+
+    private boolean sameContent(Path first, Path second) throws IOException {
+        byte[] firstBuffer = new byte[64 * 1024];
+        byte[] secondBuffer = new byte[64 * 1024];
+        try (InputStream firstIn = Files.newInputStream(first); InputStream secondIn = Files.newInputStream(second)) {
+            while (true) {
+                int firstRead = firstIn.readNBytes(firstBuffer, 0, firstBuffer.length);
+                int secondRead = secondIn.readNBytes(secondBuffer, 0, secondBuffer.length);
+                if (firstRead != secondRead) {
+                    return false;
+                }
+                if (firstRead == 0) {
+                    return true;
+                }
+                if (!Arrays.equals(firstBuffer, 0, firstRead, secondBuffer, 0, secondRead)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private Path previousBackup(String backupId) {
+        File[] folders = backupFolder.listFiles(File::isDirectory);
+        File newest = null;
+        if (folders != null) {
+            for (File folder : folders) {
+                if (folder.getName().startsWith(".") || folder.getName().equals(backupId)) {
+                    continue;
+                }
+                if (newest == null || folder.lastModified() > newest.lastModified()) {
+                    newest = folder;
+                }
+            }
+        }
+        return newest == null ? null : newest.toPath();
+    }
+
+    @Override
+    public void restoreBackup(String backupId, Path target, IoProgress progress) throws IOException {
+        Path datedBackupFolder = backupFolder.toPath().resolve(backupId);
+        if (!Files.isDirectory(datedBackupFolder)) {
+            throw new IOException("Backup not found: " + backupId);
+        }
+        snapshotSync.sync(datedBackupFolder, target, progress);
+    }
+}
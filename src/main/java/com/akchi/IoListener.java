@@ -0,0 +1,8 @@
+package com.akchi;
+
+public interface IoListener {
+
+    void onProgress(int done, int total);
+
+    void onFinished(boolean cancelled, Exception failure);
+}
@@ -0,0 +1,126 @@
+package com.akchi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+public class IoProgress {
+
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private final IoListener listener;
+    private final Executor callbackExecutor;
+    private final LongAdder filesCopied = new LongAdder();
+    private final LongAdder filesSkipped = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private volatile IoThrottle throttle = IoThrottle.unlimited();
+    private volatile boolean cancelled;
+
+    public IoProgress(IoListener listener, Executor callbackExecutor) {
+        this.listener = listener;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    public static IoProgress none() {
+        return new IoProgress(null, Runnable::run);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Operation cancelled");
+        }
+    }
+
+    public void setThrottle(IoThrottle throttle) {
+        this.throttle = throttle;
+    }
+
+    public IoThrottle getThrottle() {
+        return throttle;
+    }
+
+    public void update(int done, int total) {
+        if (listener != null) {
+            callbackExecutor.execute(() -> listener.onProgress(done, total));
+        }
+    }
+
+    public void charge(long bytes) {
+        throttle.acquire(bytes, this);
+    }
+
+    public byte[] read(Path file) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream((int) Math.min(Files.size(file), Integer.MAX_VALUE - 8));
+        byte[] buffer = new byte[CHUNK_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+                charge(read);
+            }
+        }
+        return content.toByteArray();
+    }
+
+    public void write(Path file, byte[] content) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int offset = 0; offset < content.length; offset += CHUNK_SIZE) {
+                int length = Math.min(CHUNK_SIZE, content.length - offset);
+                out.write(content, offset, length);
+                charge(length);
+            }
+        }
+    }
+
+    public void recordCopied(long read, long written) {
+        filesCopied.increment();
+        bytesRead.add(read);
+        bytesWritten.add(written);
+    }
+
+    public void recordRead(long read) {
+        bytesRead.add(read);
+    }
+
+    public void recordSkipped(long read) {
+        filesSkipped.increment();
+        bytesRead.add(read);
+    }
+
+    public long getFilesCopied() {
+        return filesCopied.sum();
+    }
+
+    public long getFilesSkipped() {
+        return filesSkipped.sum();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    void finish(boolean wasCancelled, Exception failure) {
+        if (listener != null) {
+            callbackExecutor.execute(() -> listener.onFinished(wasCancelled, failure));
+        }
+    }
+}
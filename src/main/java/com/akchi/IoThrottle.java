@@ -0,0 +1,64 @@
+package com.akchi;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+// Token bucket that may be overdrawn; the next caller waits until the debt is paid back.
+public class IoThrottle {
+
+    private static final long BURST_DIVISOR = 8;
+    private static final long SLEEP_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final long bytesPerSecond;
+    private final long capacity;
+    private long tokens;
+    private long refilledAt = System.nanoTime();
+
+    public IoThrottle(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.capacity = Math.max(1, bytesPerSecond / BURST_DIVISOR);
+        this.tokens = capacity;
+    }
+
+    public static IoThrottle unlimited() {
+        return new IoThrottle(0);
+    }
+
+    public boolean isLimited() {
+        return bytesPerSecond > 0;
+    }
+
+    public void acquire(long bytes, IoProgress progress) {
+        if (!isLimited() || bytes <= 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            waitNanos = tokens < 0 ? TimeUnit.SECONDS.toNanos(1) * -tokens / bytesPerSecond : 0;
+            tokens -= bytes;
+        }
+        long deadline = System.nanoTime() + waitNanos;
+        try {
+            for (long remaining = waitNanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+                progress.checkCancelled();
+                TimeUnit.NANOSECONDS.sleep(Math.min(remaining, SLEEP_SLICE_NANOS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while throttled");
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long elapsed = now - refilledAt;
+        long untilFull = TimeUnit.SECONDS.toNanos(1) * (capacity - tokens) / bytesPerSecond;
+        if (elapsed >= untilFull) {
+            tokens = capacity;
+        } else {
+            tokens += elapsed * bytesPerSecond / TimeUnit.SECONDS.toNanos(1);
+        }
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,456 @@
+package com.akchi;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+public class ObjectBackupStorage implements BackupStorage {
+
+    private static final String MANIFEST_SUFFIX = ".json";
+    private static final String PATH = "path";
+    private static final String HASH = "hash";
+    private static final String SIZE = "size";
+    private static final String MODIFIED = "modified";
+    private static final String CREATED = "created";
+    private static final int DELTA_MAGIC = 0x46444C54;
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final Path objectsFolder;
+    private final Path deltasFolder;
+    private final Path snapshotsFolder;
+    private final List<PathMatcher> deltaMatchers = new ArrayList<>();
+    private final int keyframeInterval;
+    private Map<String, JsonObject> lastManifestFiles;
+
+    public ObjectBackupStorage(Path storeFolder) {
+        this(storeFolder, new ArrayList<>(), 1);
+    }
+
+    public ObjectBackupStorage(Path storeFolder, List<String> deltaPatterns, int keyframeInterval) {
+        this.objectsFolder = storeFolder.resolve("objects");
+        this.deltasFolder = storeFolder.resolve("deltas");
+        this.snapshotsFolder = storeFolder.resolve("snapshots");
+        this.keyframeInterval = keyframeInterval;
+        for (String pattern : deltaPatterns) {
+            deltaMatchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+        }
+    }
+
+    @Override
+    public List<String> listBackups() {
+        List<String> backups = new ArrayList<>();
+        if (!Files.isDirectory(snapshotsFolder)) {
+            return backups;
+        }
+        try (Stream<Path> manifests = Files.list(snapshotsFolder)) {
+            manifests.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(MANIFEST_SUFFIX))
+                    .forEach(name -> backups.add(name.substring(0, name.length() - MANIFEST_SUFFIX.length())));
+        } catch (IOException e) {
+            logger.info(e.getMessage());
+        }
+        return backups;
+    }
+
+    @Override
+    public synchronized BackupInfo createBackup(Path source, String backupId, IoProgress progress) throws IOException {
+        Files.createDirectories(objectsFolder);
+        Files.createDirectories(snapshotsFolder);
+        Map<String, JsonObject> previousFiles = lastManifestFiles();
+
+        JsonArray files = new JsonArray();
+        JsonArray dirs = new JsonArray();
+        Map<String, JsonObject> manifestFiles = new HashMap<>();
+        int storedObjects = 0;
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths.sorted()::iterator) {
+                if (path.equals(source)) {
+                    continue;
+                }
+                String relative = FileTrees.relativeName(source, path);
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (attrs.isDirectory()) {
+                    dirs.add(relative);
+                    continue;
+                }
+                long modified = attrs.lastModifiedTime().toMillis();
+                String hash = cachedHash(previousFiles.get(relative), attrs.size(), modified);
+                long read = 0;
+                if (hash == null) {
+                    hash = FileHashing.sha256(path, progress);
+                    read = attrs.size();
+                }
+                JsonObject previous = previousFiles.get(relative);
+                String baseHash = previous != null && isDeltaCandidate(relative) ? previous.get(HASH).getAsString() : null;
+                long written = storeObject(path, hash, baseHash, progress);
+                if (written >= 0) {
+                    storedObjects++;
+                    progress.recordCopied(read + attrs.size(), written);
+                } else {
+                    progress.recordSkipped(read);
+                }
+                JsonObject entry = new JsonObject();
+                entry.addProperty(PATH, relative);
+                entry.addProperty(HASH, hash);
+                entry.addProperty(SIZE, attrs.size());
+                entry.addProperty(MODIFIED, modified);
+                files.add(entry);
+                manifestFiles.put(relative, entry);
+            }
+        }
+
+        JsonObject manifest = new JsonObject();
+        manifest.addProperty("id", backupId);
+        manifest.addProperty(CREATED, System.currentTimeMillis());
+        manifest.add("dirs", dirs);
+        manifest.add("files", files);
+        writeAtomically(manifestPath(backupId), manifest.toString());
+        lastManifestFiles = manifestFiles;
+        logger.log(Level.INFO, "Backup {0}: {1} files, {2} new objects", new Object[]{backupId, files.size(), storedObjects});
+        return toBackupInfo(backupId, manifest);
+    }
+
+    @Override
+    public BackupInfo describeBackup(String backupId) throws IOException {
+        return toBackupInfo(backupId, readManifest(manifestPath(backupId)));
+    }
+
+    @Override
+    public BackupManifest describeFiles(String backupId) throws IOException {
+        BackupManifest files = new BackupManifest();
+        for (JsonObject entry : filesOf(readManifest(manifestPath(backupId))).values()) {
+            files.add(entry.get(PATH).getAsString(), entry.get(SIZE).getAsLong(), entry.get(MODIFIED).getAsLong(), entry.get(HASH).getAsString());
+        }
+        return files;
+    }
+
+    private BackupInfo toBackupInfo(String backupId, JsonObject manifest) {
+        List<String> lines = new ArrayList<>();
+        long size = 0;
+        for (JsonElement element : manifest.getAsJsonArray("files")) {
+            JsonObject entry = element.getAsJsonObject();
+            lines.add(entry.get(PATH).getAsString() + "\t" + entry.get(HASH).getAsString());
+            size += entry.get(SIZE).getAsLong();
+        }
+        Instant created = Instant.ofEpochMilli(manifest.get(CREATED).getAsLong());
+        return new BackupInfo(backupId, created, size, lines.size(), FileHashing.sha256(lines));
+    }
+
+    @Override
+    public void restoreBackup(String backupId, Path target, IoProgress progress) throws IOException {
+        JsonObject manifest = readManifest(manifestPath(backupId));
+        Files.createDirectories(target);
+
+        Set<String> dirs = new HashSet<>();
+        for (JsonElement dir : manifest.getAsJsonArray("dirs")) {
+            dirs.add(dir.getAsString());
+        }
+        Map<String, JsonObject> files = filesOf(manifest);
+
+        List<Path> existing;
+        try (Stream<Path> paths = Files.walk(target)) {
+            existing = new ArrayList<>();
+            paths.filter(path -> !path.equals(target)).forEach(existing::add);
+        }
+        existing.sort(Comparator.reverseOrder());
+        for (Path path : existing) {
+            String relative = FileTrees.relativeName(target, path);
+            boolean keep = Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS) ? dirs.contains(relative) : files.containsKey(relative);
+            if (!keep) {
+                Files.deleteIfExists(path);
+            }
+        }
+
+        for (String dir : dirs) {
+            Files.createDirectories(target.resolve(dir));
+        }
+        int done = 0;
+        for (JsonObject entry : files.values()) {
+            progress.checkCancelled();
+            progress.update(done++, files.size());
+            Path targetPath = target.resolve(entry.get(PATH).getAsString());
+            long size = entry.get(SIZE).getAsLong();
+            long modified = entry.get(MODIFIED).getAsLong();
+            if (Files.isRegularFile(targetPath)
+                    && Files.size(targetPath) == size
+                    && Files.getLastModifiedTime(targetPath).toMillis() == modified) {
+                progress.recordSkipped(0);
+                continue;
+            }
+            String hash = entry.get(HASH).getAsString();
+            if (Files.exists(objectPath(hash))) {
+                ParallelCopier.copyFile(objectPath(hash), targetPath, progress);
+            } else {
+                Files.deleteIfExists(targetPath);
+                progress.write(targetPath, readContent(hash));
+            }
+            Files.setLastModifiedTime(targetPath, FileTime.fromMillis(modified));
+            progress.recordCopied(size, size);
+        }
+    }
+
+    @Override
+    public synchronized void deleteBackups(Collection<String> backupIds) throws IOException {
+        for (String backupId : backupIds) {
+            Files.deleteIfExists(manifestPath(backupId));
+        }
+        lastManifestFiles = null;
+        collectGarbage();
+    }
+
+    private void collectGarbage() throws IOException {
+        Set<String> live = new HashSet<>();
+        for (String backupId : listBackups()) {
+            for (JsonObject entry : filesOf(readManifest(manifestPath(backupId))).values()) {
+                markLive(entry.get(HASH).getAsString(), live);
+            }
+        }
+        int removed = sweep(objectsFolder, live) + sweep(deltasFolder, live);
+        logger.log(Level.INFO, "Removed {0} unreferenced backup objects", removed);
+    }
+
+    private void markLive(String hash, Set<String> live) throws IOException {
+        String current = hash;
+        while (current != null && live.add(current)) {
+            Path deltaPath = deltaPath(current);
+            if (Files.exists(objectPath(current)) || !Files.exists(deltaPath)) {
+                return;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(deltaPath)))) {
+                in.readInt();
+                current = in.readUTF();
+            }
+        }
+    }
+
+    private int sweep(Path folder, Set<String> live) throws IOException {
+        if (!Files.isDirectory(folder)) {
+            return 0;
+        }
+        int removed = 0;
+        try (Stream<Path> paths = Files.walk(folder, 2)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                String hash = path.getParent().getFileName().toString() + path.getFileName().toString();
+                if (!live.contains(hash) && Files.deleteIfExists(path)) {
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private long storeObject(Path file, String hash, String baseHash, IoProgress progress) throws IOException {
+        Path objectPath = objectPath(hash);
+        if (hasContent(hash)) {
+            return -1;
+        }
+        if (baseHash != null && !baseHash.equals(hash) && hasContent(baseHash)) {
+            long written = storeDelta(file, hash, baseHash, progress);
+            if (written >= 0) {
+                return written;
+            }
+        }
+        Files.createDirectories(objectPath.getParent());
+        Path temp = Files.createTempFile(objectPath.getParent(), hash, ".tmp");
+        try {
+            long written = ParallelCopier.copyFile(file, temp, progress);
+            Files.move(temp, objectPath, StandardCopyOption.ATOMIC_MOVE);
+            return written;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private long storeDelta(Path file, String hash, String baseHash, IoProgress progress) throws IOException {
+        int depth = deltaDepth(baseHash) + 1;
+        if (depth >= keyframeInterval) {
+            return -1;
+        }
+        byte[] content = progress.read(file);
+        byte[] delta = BinaryDelta.encode(readContent(baseHash), content);
+        if (delta.length > content.length * 3L / 4) {
+            return -1;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(delta.length + 80);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(DELTA_MAGIC);
+        out.writeUTF(baseHash);
+        out.writeInt(depth);
+        out.write(delta);
+
+        Path deltaPath = deltaPath(hash);
+        Files.createDirectories(deltaPath.getParent());
+        Path temp = Files.createTempFile(deltaPath.getParent(), hash, ".tmp");
+        try {
+            progress.write(temp, buffer.toByteArray());
+            Files.move(temp, deltaPath, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return buffer.size();
+    }
+
+    private byte[] readContent(String hash) throws IOException {
+        Path objectPath = objectPath(hash);
+        if (Files.exists(objectPath)) {
+            return Files.readAllBytes(objectPath);
+        }
+        Path deltaPath = deltaPath(hash);
+        if (!Files.exists(deltaPath)) {
+            throw new IOException("Missing backup object: " + hash);
+        }
+        byte[] content;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(deltaPath)))) {
+            if (in.readInt() != DELTA_MAGIC) {
+                throw new IOException("Corrupt delta object: " + hash);
+            }
+            String baseHash = in.readUTF();
+            in.readInt();
+            content = BinaryDelta.apply(readContent(baseHash), in.readAllBytes());
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt delta object: " + hash, e);
+        }
+        if (!FileHashing.sha256(content).equals(hash)) {
+            throw new IOException("Delta chain does not reproduce object: " + hash);
+        }
+        return content;
+    }
+
+    private int deltaDepth(String hash) throws IOException {
+        Path deltaPath = deltaPath(hash);
+        if (Files.exists(objectPath(hash)) || !Files.exists(deltaPath)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(deltaPath)))) {
+            in.readInt();
+            in.readUTF();
+            return in.readInt();
+        }
+    }
+
+    private boolean hasContent(String hash) {
+        return Files.exists(objectPath(hash)) || Files.exists(deltaPath(hash));
+    }
+
+    private boolean isDeltaCandidate(String relative) {
+        Path path = Paths.get(relative);
+        for (PathMatcher matcher : deltaMatchers) {
+            if (matcher.matches(path) || matcher.matches(path.getFileName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String cachedHash(JsonObject previous, long size, long modified) {
+        if (previous != null
+                && previous.get(SIZE).getAsLong() == size
+                && previous.get(MODIFIED).getAsLong() == modified
+                && hasContent(previous.get(HASH).getAsString())) {
+            return previous.get(HASH).getAsString();
+        }
+        return null;
+    }
+
+    private Map<String, JsonObject> lastManifestFiles() {
+        if (lastManifestFiles != null) {
+            return lastManifestFiles;
+        }
+        lastManifestFiles = new HashMap<>();
+        try (Stream<Path> manifests = Files.list(snapshotsFolder)) {
+            Path newest = manifests.filter(path -> path.getFileName().toString().endsWith(MANIFEST_SUFFIX))
+                    .max(Comparator.comparingLong(this::lastModifiedMillis))
+                    .orElse(null);
+            if (newest != null) {
+                lastManifestFiles = filesOf(readManifest(newest));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.info(e.getMessage());
+        }
+        return lastManifestFiles;
+    }
+
+    private long lastModifiedMillis(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private Map<String, JsonObject> filesOf(JsonObject manifest) {
+        Map<String, JsonObject> files = new HashMap<>();
+        for (JsonElement element : manifest.getAsJsonArray("files")) {
+            JsonObject entry = element.getAsJsonObject();
+            files.put(entry.get(PATH).getAsString(), entry);
+        }
+        return files;
+    }
+
+    private JsonObject readManifest(Path manifestPath) throws IOException {
+        if (!Files.isRegularFile(manifestPath)) {
+            throw new IOException("Backup manifest not found: " + manifestPath.getFileName());
+        }
+        try (Reader reader = Files.newBufferedReader(manifestPath, StandardCharsets.UTF_8)) {
+            return JsonParser.parseReader(reader).getAsJsonObject();
+        } catch (IllegalStateException e) {
+            throw new IOException("Corrupt backup manifest: " + manifestPath.getFileName(), e);
+        }
+    }
+
+    private void writeAtomically(Path path, String content) throws IOException {
+        Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(content);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path manifestPath(String backupId) {
+        return snapshotsFolder.resolve(backupId + MANIFEST_SUFFIX);
+    }
+
+    private Path objectPath(String hash) {
+        return objectsFolder.resolve(hash.substring(0, 2)).resolve(hash.substring(2));
+    }
+
+    private Path deltaPath(String hash) {
+        return deltasFolder.resolve(hash.substring(0, 2)).resolve(hash.substring(2));
+    }
+}
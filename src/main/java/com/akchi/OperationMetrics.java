@@ -0,0 +1,145 @@
+package com.akchi;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+public class OperationMetrics implements OperationMetricsMXBean {
+
+    private static final long[] BOUNDS_MILLIS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    private final String operation;
+    private final long[] histogram = new long[BOUNDS_MILLIS.length + 1];
+    private long count;
+    private long failures;
+    private long totalNanos;
+    private long maxNanos;
+    private long lastNanos;
+    private long totalQueueNanos;
+    private long maxQueueNanos;
+    private long bytesRead;
+    private long bytesWritten;
+    private long filesCopied;
+    private long filesSkipped;
+
+    public OperationMetrics(String operation) {
+        this.operation = operation;
+    }
+
+    synchronized void record(long queueNanos, long durationNanos, IoProgress progress, boolean failed) {
+        count++;
+        if (failed) {
+            failures++;
+        }
+        totalNanos += durationNanos;
+        maxNanos = Math.max(maxNanos, durationNanos);
+        lastNanos = durationNanos;
+        totalQueueNanos += queueNanos;
+        maxQueueNanos = Math.max(maxQueueNanos, queueNanos);
+        bytesRead += progress.getBytesRead();
+        bytesWritten += progress.getBytesWritten();
+        filesCopied += progress.getFilesCopied();
+        filesSkipped += progress.getFilesSkipped();
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        int bucket = 0;
+        while (bucket < BOUNDS_MILLIS.length && millis > BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        histogram[bucket]++;
+    }
+
+    @Override
+    public String getOperation() {
+        return operation;
+    }
+
+    @Override
+    public synchronized long getCount() {
+        return count;
+    }
+
+    @Override
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    @Override
+    public synchronized double getMeanMillis() {
+        return count == 0 ? 0 : totalNanos / 1e6 / count;
+    }
+
+    @Override
+    public synchronized long getMaxMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxNanos);
+    }
+
+    @Override
+    public synchronized long getLastMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastNanos);
+    }
+
+    @Override
+    public synchronized long getP50Millis() {
+        return percentile(0.50);
+    }
+
+    @Override
+    public synchronized long getP95Millis() {
+        return percentile(0.95);
+    }
+
+    @Override
+    public long[] getHistogramBoundsMillis() {
+        return BOUNDS_MILLIS.clone();
+    }
+
+    @Override
+    public synchronized long[] getHistogramCounts() {
+        return Arrays.copyOf(histogram, histogram.length);
+    }
+
+    @Override
+    public synchronized long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public synchronized long getFilesCopied() {
+        return filesCopied;
+    }
+
+    @Override
+    public synchronized long getFilesSkipped() {
+        return filesSkipped;
+    }
+
+    @Override
+    public synchronized double getMeanQueueWaitMillis() {
+        return count == 0 ? 0 : totalQueueNanos / 1e6 / count;
+    }
+
+    @Override
+    public synchronized long getMaxQueueWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxQueueNanos);
+    }
+
+    private long percentile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int bucket = 0; bucket < BOUNDS_MILLIS.length; bucket++) {
+            seen += histogram[bucket];
+            if (seen >= rank) {
+                return Math.min(BOUNDS_MILLIS[bucket], getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+}
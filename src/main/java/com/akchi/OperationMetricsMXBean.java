@@ -0,0 +1,36 @@
+package com.akchi;
+
+public interface OperationMetricsMXBean {
+
+    String getOperation();
+
+    long getCount();
+
+    long getFailures();
+
+    double getMeanMillis();
+
+    long getMaxMillis();
+
+    long getLastMillis();
+
+    long getP50Millis();
+
+    long getP95Millis();
+
+    long[] getHistogramBoundsMillis();
+
+    long[] getHistogramCounts();
+
+    long getBytesRead();
+
+    long getBytesWritten();
+
+    long getFilesCopied();
+
+    long getFilesSkipped();
+
+    double getMeanQueueWaitMillis();
+
+    long getMaxQueueWaitMillis();
+}
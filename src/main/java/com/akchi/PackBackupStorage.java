@@ -0,0 +1,586 @@
+package com.akchi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Layout: ENTRY records, a COMMIT per backup, DELETE tombstones, then the INDEX and a footer pointing at it.
+public class PackBackupStorage implements BackupStorage {
+
+    private static final int ENTRY_MAGIC = 0x46504B45;
+    private static final int COMMIT_MAGIC = 0x46504B43;
+    private static final int INDEX_MAGIC = 0x46504B49;
+    private static final int FOOTER_MAGIC = 0x46504B46;
+    private static final int DELETE_MAGIC = 0x46504B44;
+    private static final long COMPACT_MIN_BYTES = 16L * 1024 * 1024;
+    private static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int DIRECTORY = -1;
+    private static final int RECORD_HEADER_WINDOW = 64 * 1024;
+    private static final String IMPORTED_FOLDER = ".imported";
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final Path packFile;
+    private final Map<String, PackedBackup> index = new LinkedHashMap<>();
+    private long indexOffset;
+    private boolean loaded;
+
+    public PackBackupStorage(Path packFile) {
+        this.packFile = packFile;
+    }
+
+    @Override
+    public synchronized List<String> listBackups() {
+        try {
+            ensureLoaded();
+        } catch (IOException e) {
+            logger.info(e.getMessage());
+        }
+        return new ArrayList<>(index.keySet());
+    }
+
+    @Override
+    public synchronized BackupInfo createBackup(Path source, String backupId, IoProgress progress) throws IOException {
+        appendBackup(source, backupId, System.currentTimeMillis(), progress);
+        return describeBackup(backupId);
+    }
+
+    @Override
+    public synchronized BackupInfo describeBackup(String backupId) throws IOException {
+        ensureLoaded();
+        PackedBackup backup = index.get(backupId);
+        if (backup == null) {
+            throw new IOException("Backup not found: " + backupId);
+        }
+        List<String> lines = new ArrayList<>();
+        long size = 0;
+        for (PackedEntry entry : backup.entries) {
+            if (entry.rawLength != DIRECTORY) {
+                lines.add(entry.path + "\t" + entry.rawLength + "\t" + entry.modified);
+                size += entry.rawLength;
+            }
+        }
+        return new BackupInfo(backupId, Instant.ofEpochMilli(backup.created), size, lines.size(), FileHashing.sha256(lines));
+    }
+
+    @Override
+    public synchronized BackupManifest describeFiles(String backupId) throws IOException {
+        ensureLoaded();
+        PackedBackup backup = index.get(backupId);
+        if (backup == null) {
+            throw new IOException("Backup not found: " + backupId);
+        }
+        BackupManifest files = new BackupManifest();
+        for (PackedEntry entry : backup.entries) {
+            if (entry.rawLength != DIRECTORY) {
+                files.add(entry.path, entry.rawLength, entry.modified, null);
+            }
+        }
+        return files;
+    }
+
+    @Override
+    public void restoreBackup(String backupId, Path target, IoProgress progress) throws IOException {
+        PackedBackup backup;
+        synchronized (this) {
+            ensureLoaded();
+            backup = index.get(backupId);
+        }
+        if (backup == null) {
+            throw new IOException("Backup not found: " + backupId);
+        }
+
+        Map<String, PackedEntry> entries = new HashMap<>();
+        for (PackedEntry entry : backup.entries) {
+            entries.put(entry.path, entry);
+        }
+        Files.createDirectories(target);
+        deleteUnlisted(target, entries);
+
+        try (FileChannel channel = FileChannel.open(packFile, StandardOpenOption.READ)) {
+            int done = 0;
+            for (PackedEntry entry : backup.entries) {
+                progress.checkCancelled();
+                progress.update(done++, backup.entries.size());
+                Path targetPath = target.resolve(entry.path);
+                if (entry.rawLength == DIRECTORY) {
+                    Files.createDirectories(targetPath);
+                    continue;
+                }
+                if (Files.isRegularFile(targetPath)
+                        && Files.size(targetPath) == entry.rawLength
+                        && Files.getLastModifiedTime(targetPath).toMillis() == entry.modified) {
+                    progress.recordSkipped(0);
+                    continue;
+                }
+                Files.createDirectories(targetPath.getParent());
+                progress.write(targetPath, inflate(readFully(channel, entry.offset, entry.compressedLength), entry));
+                Files.setLastModifiedTime(targetPath, FileTime.fromMillis(entry.modified));
+                progress.recordCopied(entry.compressedLength, entry.rawLength);
+            }
+        }
+    }
+
+    public synchronized List<File> pendingFolderImports(File backupFolder) {
+        List<File> pending = new ArrayList<>();
+        File[] folders = backupFolder.listFiles(File::isDirectory);
+        if (folders == null) {
+            return pending;
+        }
+        try {
+            ensureLoaded();
+        } catch (IOException e) {
+            logger.info(e.getMessage());
+            return pending;
+        }
+        for (File folder : folders) {
+            if (!folder.getName().startsWith(".") && !index.containsKey(folder.getName())) {
+                pending.add(folder);
+            }
+        }
+        return pending;
+    }
+
+    public List<String> importFolderBackups(File backupFolder, IoProgress progress) throws IOException {
+        List<File> pending = pendingFolderImports(backupFolder);
+        List<String> imported = new ArrayList<>();
+        for (File folder : pending) {
+            progress.checkCancelled();
+            progress.update(imported.size(), pending.size());
+            synchronized (this) {
+                appendBackup(folder.toPath(), folder.getName(), folder.lastModified(), progress);
+            }
+            markImported(folder);
+            imported.add(folder.getName());
+        }
+        progress.update(imported.size(), pending.size());
+        if (!imported.isEmpty()) {
+            logger.log(Level.INFO, "Imported {0} folder backups into {1}", new Object[]{imported.size(), packFile.getFileName()});
+        }
+        return imported;
+    }
+
+    private void markImported(File folder) throws IOException {
+        Path importedFolder = folder.toPath().resolveSibling(IMPORTED_FOLDER);
+        Files.createDirectories(importedFolder);
+        Path target = importedFolder.resolve(folder.getName());
+        FileTrees.deleteRecursively(target);
+        Files.move(folder.toPath(), target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void appendBackup(Path source, String backupId, long created, IoProgress progress) throws IOException {
+        ensureLoaded();
+        if (index.containsKey(backupId)) {
+            index.remove(backupId);
+        }
+        Files.createDirectories(packFile.getParent());
+        PackedBackup backup = new PackedBackup(created);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (FileChannel channel = FileChannel.open(packFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             Stream<Path> paths = Files.walk(source)) {
+            long position = indexOffset;
+            for (Path path : (Iterable<Path>) paths.sorted()::iterator) {
+                if (path.equals(source)) {
+                    continue;
+                }
+                String relative = FileTrees.relativeName(source, path);
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                byte[] compressed = new byte[0];
+                int rawLength = DIRECTORY;
+                if (!attrs.isDirectory()) {
+                    byte[] raw = progress.read(path);
+                    rawLength = raw.length;
+                    compressed = deflate(deflater, raw);
+                }
+
+                PackedEntry entry = new PackedEntry(relative, attrs.lastModifiedTime().toMillis(), 0, compressed.length, rawLength);
+                long entryStart = position;
+                position = writeEntry(channel, position, backupId, created, entry, ByteBuffer.wrap(compressed), backup);
+                progress.charge(position - entryStart);
+                if (rawLength != DIRECTORY) {
+                    progress.recordCopied(rawLength, position - entryStart);
+                }
+            }
+            position = writeMarker(channel, position, COMMIT_MAGIC, backupId, created);
+
+            backup.end = position;
+            index.put(backupId, backup);
+            writeIndex(channel, position);
+            channel.force(false);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public synchronized void deleteBackups(Collection<String> backupIds) throws IOException {
+        ensureLoaded();
+        List<String> deleted = new ArrayList<>();
+        for (String backupId : backupIds) {
+            if (index.containsKey(backupId)) {
+                deleted.add(backupId);
+            }
+        }
+        if (deleted.isEmpty()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(packFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long position = indexOffset;
+            for (String backupId : deleted) {
+                position = writeMarker(channel, position, DELETE_MAGIC, backupId, 0L);
+                index.remove(backupId);
+            }
+            writeIndex(channel, position);
+            channel.force(false);
+        }
+        compactIfWasteful();
+    }
+
+    private void compactIfWasteful() {
+        long live = 0;
+        for (PackedBackup backup : index.values()) {
+            for (PackedEntry entry : backup.entries) {
+                live += entry.compressedLength;
+            }
+        }
+        if (indexOffset < COMPACT_MIN_BYTES || live * 2 > indexOffset) {
+            return;
+        }
+        Path compacted = packFile.resolveSibling(packFile.getFileName() + ".compact");
+        try {
+            Map<String, PackedBackup> rewritten = new LinkedHashMap<>();
+            long position = 0;
+            try (FileChannel source = FileChannel.open(packFile, StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (Map.Entry<String, PackedBackup> backup : index.entrySet()) {
+                    PackedBackup copy = new PackedBackup(backup.getValue().created);
+                    for (PackedEntry entry : backup.getValue().entries) {
+                        ByteBuffer data = readFully(source, entry.offset, entry.compressedLength);
+                        position = writeEntry(target, position, backup.getKey(), copy.created, entry, data, copy);
+                    }
+                    position = writeMarker(target, position, COMMIT_MAGIC, backup.getKey(), copy.created);
+                    copy.end = position;
+                    rewritten.put(backup.getKey(), copy);
+                }
+                Map<String, PackedBackup> previous = new LinkedHashMap<>(index);
+                index.clear();
+                index.putAll(rewritten);
+                try {
+                    writeIndex(target, position);
+                    target.force(false);
+                } catch (IOException e) {
+                    index.clear();
+                    index.putAll(previous);
+                    throw e;
+                }
+            }
+            Files.move(compacted, packFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.log(Level.INFO, "Compacted {0} to {1} bytes", new Object[]{packFile.getFileName(), position});
+        } catch (IOException e) {
+            logger.log(Level.INFO, "Pack compaction skipped: {0}", e.getMessage());
+            loaded = false;
+        } finally {
+            try {
+                Files.deleteIfExists(compacted);
+            } catch (IOException e) {
+                logger.info(e.getMessage());
+            }
+        }
+    }
+
+    private long writeEntry(FileChannel channel, long position, String backupId, long created, PackedEntry entry, ByteBuffer compressed, PackedBackup backup) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(header);
+        out.writeInt(ENTRY_MAGIC);
+        writeString(out, backupId);
+        writeString(out, entry.path);
+        out.writeLong(created);
+        out.writeLong(entry.modified);
+        out.writeInt(entry.rawLength);
+        out.writeInt(entry.compressedLength);
+        long dataOffset = position + writeFully(channel, position, ByteBuffer.wrap(header.toByteArray()));
+        backup.entries.add(new PackedEntry(entry.path, entry.modified, dataOffset, entry.compressedLength, entry.rawLength));
+        return dataOffset + writeFully(channel, dataOffset, compressed);
+    }
+
+    private long writeMarker(FileChannel channel, long position, int magic, String backupId, long created) throws IOException {
+        ByteArrayOutputStream marker = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(marker);
+        out.writeInt(magic);
+        writeString(out, backupId);
+        out.writeLong(created);
+        return position + writeFully(channel, position, ByteBuffer.wrap(marker.toByteArray()));
+    }
+
+    private void writeIndex(FileChannel channel, long position) throws IOException {
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(block);
+        out.writeInt(INDEX_MAGIC);
+        out.writeInt(index.size());
+        for (Map.Entry<String, PackedBackup> backup : index.entrySet()) {
+            writeString(out, backup.getKey());
+            out.writeLong(backup.getValue().created);
+            out.writeLong(backup.getValue().end);
+            out.writeInt(backup.getValue().entries.size());
+            for (PackedEntry entry : backup.getValue().entries) {
+                writeString(out, entry.path);
+                out.writeLong(entry.modified);
+                out.writeLong(entry.offset);
+                out.writeInt(entry.compressedLength);
+                out.writeInt(entry.rawLength);
+            }
+        }
+        out.writeLong(position);
+        out.writeInt(FOOTER_MAGIC);
+        long end = position + writeFully(channel, position, ByteBuffer.wrap(block.toByteArray()));
+        if (channel.size() > end) {
+            try {
+                channel.truncate(end);
+            } catch (IOException e) {
+                logger.log(Level.INFO, "Could not trim pack file, index will be rebuilt on next load: {0}", e.getMessage());
+            }
+        }
+        indexOffset = position;
+    }
+
+    private void ensureLoaded() throws IOException {
+        if (loaded) {
+            return;
+        }
+        index.clear();
+        indexOffset = 0;
+        if (Files.isRegularFile(packFile) && Files.size(packFile) > 0) {
+            try (FileChannel channel = FileChannel.open(packFile, StandardOpenOption.READ)) {
+                if (!readIndex(channel)) {
+                    logger.log(Level.INFO, "Pack index missing or damaged, rebuilding {0}", packFile.getFileName());
+                    index.clear();
+                    rebuildIndex(channel);
+                }
+            }
+        }
+        loaded = true;
+    }
+
+    private boolean readIndex(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < FOOTER_SIZE) {
+            return false;
+        }
+        ByteBuffer footer = readFully(channel, size - FOOTER_SIZE, FOOTER_SIZE);
+        long offset = footer.getLong();
+        if (footer.getInt() != FOOTER_MAGIC || offset < 0 || offset > size - FOOTER_SIZE) {
+            return false;
+        }
+        try {
+            ByteBuffer buffer = readFully(channel, offset, (int) (size - FOOTER_SIZE - offset));
+            if (buffer.getInt() != INDEX_MAGIC) {
+                return false;
+            }
+            int backups = buffer.getInt();
+            for (int i = 0; i < backups; i++) {
+                String backupId = readString(buffer);
+                PackedBackup backup = new PackedBackup(buffer.getLong());
+                backup.end = buffer.getLong();
+                int entries = buffer.getInt();
+                for (int j = 0; j < entries; j++) {
+                    backup.entries.add(new PackedEntry(readString(buffer), buffer.getLong(), buffer.getLong(), buffer.getInt(), buffer.getInt()));
+                }
+                index.put(backupId, backup);
+            }
+            indexOffset = offset;
+            return true;
+        } catch (RuntimeException e) {
+            index.clear();
+            return false;
+        }
+    }
+
+    private void rebuildIndex(FileChannel channel) throws IOException {
+        Map<String, PackedBackup> pending = new HashMap<>();
+        long size = channel.size();
+        long position = 0;
+        long committedEnd = 0;
+        try {
+            while (size - position >= Integer.BYTES) {
+                ByteBuffer record = readFully(channel, position, (int) Math.min(RECORD_HEADER_WINDOW, size - position));
+                int magic = record.getInt();
+                if (magic == ENTRY_MAGIC) {
+                    String backupId = readString(record);
+                    String path = readString(record);
+                    long created = record.getLong();
+                    long modified = record.getLong();
+                    int rawLength = record.getInt();
+                    int compressedLength = record.getInt();
+                    long offset = position + record.position();
+                    if (compressedLength < 0 || offset + compressedLength > size) {
+                        break;
+                    }
+                    position = offset + compressedLength;
+                    pending.computeIfAbsent(backupId, id -> new PackedBackup(created))
+                            .entries.add(new PackedEntry(path, modified, offset, compressedLength, rawLength));
+                } else if (magic == DELETE_MAGIC) {
+                    String backupId = readString(record);
+                    record.getLong();
+                    index.remove(backupId);
+                    pending.remove(backupId);
+                    position += record.position();
+                    committedEnd = position;
+                } else if (magic == COMMIT_MAGIC) {
+                    String backupId = readString(record);
+                    long created = record.getLong();
+                    position += record.position();
+                    PackedBackup backup = pending.remove(backupId);
+                    if (backup == null) {
+                        backup = new PackedBackup(created);
+                    }
+                    backup.end = position;
+                    index.remove(backupId);
+                    index.put(backupId, backup);
+                    committedEnd = position;
+                } else {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.INFO, "Stopped pack scan at a truncated record: {0}", e.getMessage());
+        }
+        indexOffset = committedEnd;
+    }
+
+    private void deleteUnlisted(Path target, Map<String, PackedEntry> entries) throws IOException {
+        List<Path> existing = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(target)) {
+            paths.filter(path -> !path.equals(target)).forEach(existing::add);
+        }
+        existing.sort(Comparator.reverseOrder());
+        for (Path path : existing) {
+            PackedEntry entry = entries.get(FileTrees.relativeName(target, path));
+            boolean isDirectory = Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS);
+            if (entry == null || (entry.rawLength == DIRECTORY) != isDirectory) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+        byte[] chunk = new byte[16 * 1024];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(chunk);
+            out.write(chunk, 0, length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(ByteBuffer input, PackedEntry entry) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            byte[] raw = new byte[entry.rawLength];
+            int total = 0;
+            while (total < raw.length && !inflater.finished()) {
+                int read = inflater.inflate(raw, total, raw.length - total);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                total += read;
+            }
+            if (total != raw.length) {
+                throw new IOException("Corrupt pack entry: " + entry.path);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt pack entry: " + entry.path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of pack file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int writeFully(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalStateException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class PackedBackup {
+        private final long created;
+        private final List<PackedEntry> entries = new ArrayList<>();
+        private long end;
+
+        private PackedBackup(long created) {
+            this.created = created;
+        }
+    }
+
+    private static class PackedEntry {
+        private final String path;
+        private final long modified;
+        private final long offset;
+        private final int compressedLength;
+        private final int rawLength;
+
+        private PackedEntry(String path, long modified, long offset, int compressedLength, int rawLength) {
+            this.path = path;
+            this.modified = modified;
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.rawLength = rawLength;
+        }
+    }
+}
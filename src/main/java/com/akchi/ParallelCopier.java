@@ -0,0 +1,151 @@
+package com.akchi;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelCopier {
+
+    private final ForkJoinPool pool;
+
+    public ParallelCopier(int parallelism) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    public static int defaultParallelism() {
+        return Math.min(4, Runtime.getRuntime().availableProcessors());
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public Map<Path, BasicFileAttributes> scan(Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return new HashMap<>();
+        }
+        try {
+            return pool.invoke(new ScanTask(root, root));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public void copyAll(Path source, Path target, List<Path> files, IoProgress progress, AtomicInteger done, int total) throws IOException {
+        if (files.isEmpty()) {
+            return;
+        }
+        try {
+            pool.invoke(new CopyTask(source, target, files, progress, done, total));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public static long copyFile(Path source, Path target, IoProgress progress) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(source);
+        Files.deleteIfExists(target);
+        long position = 0;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            while (position < size) {
+                long transferred = in.transferTo(position, Math.min(IoProgress.CHUNK_SIZE, size - position), out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                progress.charge(2 * transferred);
+            }
+        }
+        Files.setLastModifiedTime(target, modified);
+        return position;
+    }
+
+    private static class ScanTask extends RecursiveTask<Map<Path, BasicFileAttributes>> {
+        private static final long serialVersionUID = 1L;
+        private final Path root;
+        private final Path directory;
+
+        private ScanTask(Path root, Path directory) {
+            this.root = root;
+            this.directory = directory;
+        }
+
+        @Override
+        protected Map<Path, BasicFileAttributes> compute() {
+            Map<Path, BasicFileAttributes> entries = new HashMap<>();
+            List<ScanTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+                for (Path child : children) {
+                    BasicFileAttributes attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    entries.put(root.relativize(child), attrs);
+                    if (attrs.isDirectory()) {
+                        ScanTask subtask = new ScanTask(root, child);
+                        subtask.fork();
+                        subtasks.add(subtask);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (ScanTask subtask : subtasks) {
+                entries.putAll(subtask.join());
+            }
+            return entries;
+        }
+    }
+
+    private static class CopyTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Path source;
+        private final Path target;
+        private final List<Path> files;
+        private final IoProgress progress;
+        private final AtomicInteger done;
+        private final int total;
+
+        private CopyTask(Path source, Path target, List<Path> files, IoProgress progress, AtomicInteger done, int total) {
+            this.source = source;
+            this.target = target;
+            this.files = files;
+            this.progress = progress;
+            this.done = done;
+            this.total = total;
+        }
+
+        @Override
+        protected void compute() {
+            if (files.size() > 1) {
+                int middle = files.size() / 2;
+                invokeAll(new CopyTask(source, target, files.subList(0, middle), progress, done, total),
+                        new CopyTask(source, target, files.subList(middle, files.size()), progress, done, total));
+                return;
+            }
+            progress.checkCancelled();
+            Path relative = files.get(0);
+            try {
+                long copied = copyFile(source.resolve(relative), target.resolve(relative), progress);
+                progress.recordCopied(copied, copied);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            progress.update(done.incrementAndGet(), total);
+        }
+    }
+}
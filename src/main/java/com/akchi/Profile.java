@@ -0,0 +1,103 @@
+package com.akchi;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public final class Profile {
+
+    public static final String DEFAULT = "default";
+    private static final String PROFILES = "profiles";
+    private static final Logger logger = Logger.getLogger(Profile.class.getName());
+
+    private final String name;
+    private final File configFile;
+    private final File ftlFolder;
+    private final File autosaveFolder;
+    private final File backupFolder;
+
+    public Profile(String name, File configFile, File ftlFolder, File autosaveFolder, File backupFolder) {
+        this.name = name;
+        this.configFile = configFile;
+        this.ftlFolder = ftlFolder;
+        this.autosaveFolder = autosaveFolder;
+        this.backupFolder = backupFolder;
+    }
+
+    public static File defaultConfigFile() {
+        return new File(System.getProperty("user.home"), "AppData/Roaming/FTLAutoSaveManager/autosaveConfig.json");
+    }
+
+    public static Profile defaultProfile() {
+        return new Profile(DEFAULT, defaultConfigFile(),
+                new File(System.getProperty("user.home"), "Documents/My Games/FasterThanLight"),
+                new File(System.getProperty("user.home"), "Documents/My Games/autosave"),
+                new File(System.getProperty("user.home"), "Documents/My Games/backup"));
+    }
+
+    public static List<Profile> loadAll(ConfigStore mainConfig) {
+        List<Profile> profiles = new ArrayList<>();
+        profiles.add(defaultProfile());
+        File profileConfigs = new File(defaultConfigFile().getParentFile(), PROFILES);
+        for (JsonElement element : mainConfig.getArray(PROFILES)) {
+            try {
+                JsonObject json = element.getAsJsonObject();
+                String name = json.get("name").getAsString();
+                if (!name.matches("[A-Za-z0-9._-]+") || find(profiles, name) != null) {
+                    logger.log(Level.INFO, "Skipping profile with an invalid or duplicate name: {0}", name);
+                    continue;
+                }
+                profiles.add(new Profile(name, new File(profileConfigs, name + ".json"),
+                        new File(json.get("ftl_folder").getAsString()),
+                        new File(json.get("autosave_folder").getAsString()),
+                        new File(json.get("backup_folder").getAsString())));
+            } catch (RuntimeException e) {
+                logger.log(Level.INFO, "Skipping invalid profile {0}: {1}", new Object[]{element, e.getMessage()});
+            }
+        }
+        return profiles;
+    }
+
+    public static Profile find(List<Profile> profiles, String name) {
+        for (Profile profile : profiles) {
+            if (profile.name.equals(name)) {
+                return profile;
+            }
+        }
+        return null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public File getConfigFile() {
+        return configFile;
+    }
+
+    public File getFtlFolder() {
+        return ftlFolder;
+    }
+
+    public File getAutosaveFolder() {
+        return autosaveFolder;
+    }
+
+    public File getBackupFolder() {
+        return backupFolder;
+    }
+
+    public boolean isDefault() {
+        return DEFAULT.equals(name);
+    }
+
+    @Override
+    public String toString() {
+        return name + "\t" + ftlFolder + "\t" + autosaveFolder + "\t" + backupFolder;
+    }
+}
@@ -0,0 +1,86 @@
+package com.akchi;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class RetentionPolicy {
+
+    private static final String RETENTION_ENABLED = "retention_enabled";
+    private static final String KEEP_ALL_MINUTES = "retention_keep_all_minutes";
+    private static final String HOURLY_HOURS = "retention_hourly_hours";
+    private static final String DAILY_DAYS = "retention_daily_days";
+    private static final String MAX_LOGICAL_MEGABYTES = "retention_max_logical_mb";
+    private static final String LEGACY_MAX_MEGABYTES = "retention_max_mb";
+
+    private final boolean enabled;
+    private final Duration keepAll;
+    private final Duration hourly;
+    private final Duration daily;
+    private final long maxLogicalBytes;
+    private final ZoneId zone;
+
+    public RetentionPolicy(boolean enabled, Duration keepAll, Duration hourly, Duration daily, long maxLogicalBytes, ZoneId zone) {
+        this.enabled = enabled;
+        this.keepAll = keepAll;
+        this.hourly = hourly;
+        this.daily = daily;
+        this.maxLogicalBytes = maxLogicalBytes;
+        this.zone = zone;
+    }
+
+    public static RetentionPolicy fromConfig(ConfigStore config) {
+        return new RetentionPolicy(config.getBoolean(RETENTION_ENABLED, false),
+                Duration.ofMinutes(config.getLong(KEEP_ALL_MINUTES, 60)),
+                Duration.ofHours(config.getLong(HOURLY_HOURS, 24)),
+                Duration.ofDays(config.getLong(DAILY_DAYS, 30)),
+                config.getLong(MAX_LOGICAL_MEGABYTES, config.getLong(LEGACY_MAX_MEGABYTES, 0)) * 1024 * 1024,
+                ZoneId.systemDefault());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<String> selectExpired(List<BackupInfo> newestFirst, Instant now) {
+        List<String> expired = new ArrayList<>();
+        if (!enabled || newestFirst.isEmpty()) {
+            return expired;
+        }
+        Set<Instant> hoursKept = new HashSet<>();
+        Set<Instant> daysKept = new HashSet<>();
+        long keptLogicalBytes = 0;
+        for (int i = 0; i < newestFirst.size(); i++) {
+            BackupInfo backup = newestFirst.get(i);
+            boolean keep = i == 0 || isRetained(backup.getCreated(), now, hoursKept, daysKept);
+            if (keep && i > 0 && maxLogicalBytes > 0 && keptLogicalBytes + backup.getSize() > maxLogicalBytes) {
+                keep = false;
+            }
+            if (keep) {
+                keptLogicalBytes += backup.getSize();
+            } else {
+                expired.add(backup.getId());
+            }
+        }
+        return expired;
+    }
+
+    private boolean isRetained(Instant created, Instant now, Set<Instant> hoursKept, Set<Instant> daysKept) {
+        Duration age = Duration.between(created, now);
+        if (age.compareTo(keepAll) < 0) {
+            return true;
+        }
+        if (age.compareTo(hourly) < 0) {
+            return hoursKept.add(created.atZone(zone).truncatedTo(ChronoUnit.HOURS).toInstant());
+        }
+        if (age.compareTo(daily) < 0) {
+            return daysKept.add(created.atZone(zone).truncatedTo(ChronoUnit.DAYS).toInstant());
+        }
+        return false;
+    }
+}
@@ -0,0 +1,150 @@
+package com.akchi;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class SaveIndex {
+
+    private static final int MAGIC = 0x46544c49;
+    private static final int VERSION = 1;
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final Path indexFile;
+    private final Map<String, SaveMetadata> entries = new HashMap<>();
+    private boolean writable = true;
+
+    public SaveIndex(Path indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    public synchronized void load() {
+        entries.clear();
+        writable = true;
+        if (!Files.isRegularFile(indexFile)) {
+            return;
+        }
+        try (BufferedInputStream buffered = new BufferedInputStream(Files.newInputStream(indexFile));
+             DataInputStream in = new DataInputStream(buffered)) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.info("Save index has an unknown format, starting a new one");
+                entries.clear();
+                persist();
+                return;
+            }
+            while (true) {
+                buffered.mark(1);
+                if (buffered.read() < 0) {
+                    return;
+                }
+                buffered.reset();
+                entries.put(in.readUTF(), readEntry(in));
+            }
+        } catch (EOFException e) {
+            logger.info("Dropping truncated save index entry");
+            persist();
+        } catch (IOException e) {
+            logger.log(Level.INFO, "Could not read the save index, leaving it untouched: {0}", e.getMessage());
+            writable = false;
+        }
+    }
+
+    public synchronized void add(String backupId, SaveMetadata metadata) {
+        boolean replaced = entries.put(backupId, metadata) != null;
+        if (!writable) {
+            return;
+        }
+        if (replaced || !Files.isRegularFile(indexFile)) {
+            persist();
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile, StandardOpenOption.APPEND)))) {
+            writeEntry(out, backupId, metadata);
+        } catch (IOException e) {
+            logger.info(e.getMessage());
+        }
+    }
+
+    public synchronized void remove(Collection<String> backupIds) {
+        boolean changed = false;
+        for (String backupId : backupIds) {
+            changed |= entries.remove(backupId) != null;
+        }
+        if (changed) {
+            persist();
+        }
+    }
+
+    public synchronized SaveMetadata get(String backupId) {
+        return entries.get(backupId);
+    }
+
+    public synchronized List<BackupInfo> search(List<BackupInfo> newestFirst, SaveQuery query) {
+        if (query.isEmpty() && query.getSortField() == null) {
+            return newestFirst;
+        }
+        List<BackupInfo> matches = new ArrayList<>();
+        for (BackupInfo backup : newestFirst) {
+            if (query.matches(entries.get(backup.getId()))) {
+                matches.add(backup);
+            }
+        }
+        if (query.getSortField() != null) {
+            matches.sort((a, b) -> Integer.compare(query.getSortField().valueOf(entries.get(b.getId())),
+                    query.getSortField().valueOf(entries.get(a.getId()))));
+        }
+        return matches;
+    }
+
+    private void persist() {
+        if (!writable) {
+            return;
+        }
+        try {
+            Files.createDirectories(indexFile.getParent());
+            Path temp = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    for (Map.Entry<String, SaveMetadata> entry : entries.entrySet()) {
+                        writeEntry(out, entry.getKey(), entry.getValue());
+                    }
+                }
+                Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.info(e.getMessage());
+        }
+    }
+
+    private static void writeEntry(DataOutputStream out, String backupId, SaveMetadata metadata) throws IOException {
+        out.writeUTF(backupId);
+        out.writeUTF(metadata.getShipName());
+        out.writeInt(metadata.getSector());
+        out.writeInt(metadata.getHull());
+        out.writeInt(metadata.getScrap());
+        out.writeInt(metadata.getCrewCount());
+        out.writeInt(metadata.getDifficulty());
+    }
+
+    private static SaveMetadata readEntry(DataInputStream in) throws IOException {
+        return new SaveMetadata(in.readUTF(), in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt());
+    }
+}
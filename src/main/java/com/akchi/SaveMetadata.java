@@ -0,0 +1,181 @@
+package com.akchi;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// continue.sav formats: 2 (FTL 1.0-1.03), 7/8/9 (1.5.x), 11 (1.6).
+public final class SaveMetadata {
+
+    private static final int MAX_STRING = 64 * 1024;
+    private static final int MAX_COUNT = 10_000;
+
+    private final String shipName;
+    private final int sector;
+    private final int hull;
+    private final int scrap;
+    private final int crewCount;
+    private final int difficulty;
+
+    public SaveMetadata(String shipName, int sector, int hull, int scrap, int crewCount, int difficulty) {
+        this.shipName = shipName;
+        this.sector = sector;
+        this.hull = hull;
+        this.scrap = scrap;
+        this.crewCount = crewCount;
+        this.difficulty = difficulty;
+    }
+
+    public static SaveMetadata read(Path continueSav) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(continueSav), 8 * 1024)) {
+            return read(in);
+        }
+    }
+
+    public static SaveMetadata read(InputStream in) throws IOException {
+        int format = readInt(in);
+        if (!isSupportedFormat(format)) {
+            throw new IOException("Unsupported save format " + format);
+        }
+        if (format == 11) {
+            readInt(in);
+        }
+        if (format >= 7) {
+            readInt(in);
+        }
+        int difficulty = readInt(in);
+        for (int i = 0; i < 4; i++) {
+            readInt(in);
+        }
+        String shipName = readString(in);
+        skipString(in);
+        int sector = readInt(in);
+        readInt(in);
+        int stateVars = readCount(in);
+        for (int i = 0; i < stateVars; i++) {
+            skipString(in);
+            readInt(in);
+        }
+
+        skipString(in);
+        skipString(in);
+        skipString(in);
+        int startingCrew = readCount(in);
+        for (int i = 0; i < startingCrew; i++) {
+            skipString(in);
+            skipString(in);
+        }
+        if (format >= 7) {
+            for (int i = 0; i < 4; i++) {
+                readInt(in);
+            }
+        }
+        int hull = readInt(in);
+        readInt(in);
+        readInt(in);
+        readInt(in);
+        int scrap = readInt(in);
+        int crewCount = readCount(in);
+        return new SaveMetadata(shipName, sector, hull, scrap, crewCount, difficulty);
+    }
+
+    private static boolean isSupportedFormat(int format) {
+        switch (format) {
+            case 2:
+            case 7:
+            case 8:
+            case 9:
+            case 11:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static int readInt(InputStream in) throws IOException {
+        int b0 = in.read();
+        int b1 = in.read();
+        int b2 = in.read();
+        int b3 = in.read();
+        if ((b0 | b1 | b2 | b3) < 0) {
+            throw new EOFException("Truncated save file");
+        }
+        return b0 | (b1 << 8) | (b2 << 16) | (b3 << 24);
+    }
+
+    private static int readCount(InputStream in) throws IOException {
+        int count = readInt(in);
+        if (count < 0 || count > MAX_COUNT) {
+            throw new IOException("Implausible count " + count + " in save file");
+        }
+        return count;
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        int length = readInt(in);
+        if (length < 0 || length > MAX_STRING) {
+            throw new IOException("Implausible string length " + length + " in save file");
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Truncated save file");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(InputStream in) throws IOException {
+        int length = readInt(in);
+        if (length < 0 || length > MAX_STRING) {
+            throw new IOException("Implausible string length " + length + " in save file");
+        }
+        if (in.skip(length) != length) {
+            throw new EOFException("Truncated save file");
+        }
+    }
+
+    public String getShipName() {
+        return shipName;
+    }
+
+    public int getSector() {
+        return sector;
+    }
+
+    public int getHull() {
+        return hull;
+    }
+
+    public int getScrap() {
+        return scrap;
+    }
+
+    public int getCrewCount() {
+        return crewCount;
+    }
+
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    public String getDifficultyName() {
+        switch (difficulty) {
+            case 0:
+                return "Easy";
+            case 1:
+                return "Normal";
+            case 2:
+                return "Hard";
+            default:
+                return "Unknown";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return shipName + ", sector " + sector + ", hull " + hull + ", scrap " + scrap + ", crew " + crewCount;
+    }
+}
@@ -0,0 +1,151 @@
+package com.akchi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class SaveQuery {
+
+    private static final Pattern CONDITION = Pattern.compile("([a-z]+)(<=|>=|=|<|>)([a-z0-9]+)");
+    private static final Pattern SORT = Pattern.compile("sort:([a-z]+)");
+
+    private final List<Condition> conditions = new ArrayList<>();
+    private final List<String> words = new ArrayList<>();
+    private Field sortField;
+
+    private SaveQuery() {
+    }
+
+    public static SaveQuery parse(String text) {
+        SaveQuery query = new SaveQuery();
+        String normalized = text.trim().toLowerCase(Locale.ROOT).replaceAll("\\s*(<=|>=|=|<|>|:)\\s*", "$1");
+        for (String token : normalized.split("\\s+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            Matcher sort = SORT.matcher(token);
+            if (sort.matches()) {
+                Field field = Field.named(sort.group(1));
+                if (field == null) {
+                    throw new IllegalArgumentException("Unknown sort field: " + sort.group(1));
+                }
+                query.sortField = field;
+                continue;
+            }
+            Matcher condition = CONDITION.matcher(token);
+            if (condition.matches() && Field.named(condition.group(1)) != null) {
+                Field field = Field.named(condition.group(1));
+                query.conditions.add(new Condition(field, condition.group(2), field.parse(condition.group(3))));
+            } else {
+                query.words.add(token);
+            }
+        }
+        return query;
+    }
+
+    public boolean isEmpty() {
+        return conditions.isEmpty() && words.isEmpty();
+    }
+
+    public Field getSortField() {
+        return sortField;
+    }
+
+    public boolean matches(SaveMetadata metadata) {
+        if (metadata == null) {
+            return isEmpty() && sortField == null;
+        }
+        for (Condition condition : conditions) {
+            if (!condition.matches(condition.field.valueOf(metadata))) {
+                return false;
+            }
+        }
+        String shipName = metadata.getShipName().toLowerCase(Locale.ROOT);
+        for (String word : words) {
+            if (!shipName.contains(word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public enum Field {
+        SECTOR, HULL, SCRAP, CREW, DIFFICULTY;
+
+        static Field named(String name) {
+            for (Field field : values()) {
+                if (field.name().toLowerCase(Locale.ROOT).equals(name)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+
+        int valueOf(SaveMetadata metadata) {
+            if (metadata == null) {
+                return Integer.MIN_VALUE;
+            }
+            switch (this) {
+                case SECTOR:
+                    return metadata.getSector();
+                case HULL:
+                    return metadata.getHull();
+                case SCRAP:
+                    return metadata.getScrap();
+                case CREW:
+                    return metadata.getCrewCount();
+                default:
+                    return metadata.getDifficulty();
+            }
+        }
+
+        private int parse(String value) {
+            if (this == DIFFICULTY) {
+                switch (value) {
+                    case "easy":
+                        return 0;
+                    case "normal":
+                        return 1;
+                    case "hard":
+                        return 2;
+                    default:
+                        break;
+                }
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number for " + name().toLowerCase(Locale.ROOT) + ": " + value);
+            }
+        }
+    }
+
+    private static final class Condition {
+        private final Field field;
+        private final String operator;
+        private final int value;
+
+        private Condition(Field field, String operator, int value) {
+            this.field = field;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        private boolean matches(int actual) {
+            switch (operator) {
+                case "<":
+                    return actual < value;
+                case "<=":
+                    return actual <= value;
+                case ">":
+                    return actual > value;
+                case ">=":
+                    return actual >= value;
+                default:
+                    return actual == value;
+            }
+        }
+    }
+}
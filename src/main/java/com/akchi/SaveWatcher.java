@@ -0,0 +1,102 @@
+package com.akchi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class SaveWatcher implements Closeable {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final SnapshotScheduler scheduler;
+    private final Path folder;
+    private final String saveFileName;
+    private final long quietMillis;
+    private final Runnable onSave;
+    private final Consumer<List<WatchEvent<?>>> eventHandler = this::onEvents;
+    private WatchKey watchKey;
+    private ScheduledFuture<?> quietCheck;
+    private volatile boolean pendingChange;
+    private volatile long lastEventMillis;
+
+    public SaveWatcher(SnapshotScheduler scheduler, Path folder, String saveFileName, long quietMillis, Runnable onSave) {
+        this.scheduler = scheduler;
+        this.folder = folder;
+        this.saveFileName = saveFileName;
+        this.quietMillis = quietMillis;
+        this.onSave = onSave;
+    }
+
+    public synchronized void start() throws IOException {
+        if (watchKey != null) {
+            return;
+        }
+        watchKey = scheduler.watch(folder, eventHandler);
+        logger.log(Level.INFO, "Watching {0} for changes to {1}", new Object[]{folder, saveFileName});
+    }
+
+    public synchronized boolean isRunning() {
+        return watchKey != null;
+    }
+
+    public boolean hasPendingChange() {
+        return pendingChange;
+    }
+
+    private synchronized void onEvents(List<WatchEvent<?>> events) {
+        for (WatchEvent<?> event : events) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || saveFileName.equals(String.valueOf(event.context()))) {
+                lastEventMillis = System.currentTimeMillis();
+                pendingChange = true;
+            }
+        }
+        if (pendingChange && quietCheck == null) {
+            quietCheck = scheduler.getTimers().schedule(this::checkQuiet, quietMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void checkQuiet() {
+        synchronized (this) {
+            quietCheck = null;
+            if (watchKey == null || !pendingChange) {
+                return;
+            }
+            long remaining = lastEventMillis + quietMillis - System.currentTimeMillis();
+            if (remaining > 0) {
+                quietCheck = scheduler.getTimers().schedule(this::checkQuiet, remaining, TimeUnit.MILLISECONDS);
+                return;
+            }
+            pendingChange = false;
+        }
+        fireSave();
+    }
+
+    private void fireSave() {
+        try {
+            onSave.run();
+        } catch (RuntimeException e) {
+            logger.info(e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (quietCheck != null) {
+            quietCheck.cancel(false);
+            quietCheck = null;
+        }
+        if (watchKey != null) {
+            scheduler.unwatch(watchKey, eventHandler);
+            watchKey = null;
+        }
+    }
+}
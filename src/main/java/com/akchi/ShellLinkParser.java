@@ -0,0 +1,202 @@
+package com.akchi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Reads the target of a Windows .lnk file (MS-SHLLINK).
+public final class ShellLinkParser {
+
+    private static final int HEADER_SIZE = 0x4C;
+    private static final int HAS_LINK_TARGET_ID_LIST = 0x1;
+    private static final int HAS_LINK_INFO = 0x2;
+    private static final int HAS_NAME = 0x4;
+    private static final int HAS_RELATIVE_PATH = 0x8;
+    private static final int IS_UNICODE = 0x80;
+    private static final int VOLUME_ID_AND_LOCAL_BASE_PATH = 0x1;
+    private static final int COMMON_NETWORK_RELATIVE_LINK = 0x2;
+    private static final int FILE_ENTRY_EXTENSION = 0xBEEF0004;
+    private static final Charset ANSI = Charset.forName("windows-1252");
+
+    private ShellLinkParser() {
+    }
+
+    public static String resolveTarget(Path shortcut) throws IOException {
+        ShellLink link = parse(Files.readAllBytes(shortcut));
+        if (link.basePath != null) {
+            return link.basePath;
+        }
+        if (link.idListPath != null) {
+            return link.idListPath;
+        }
+        if (link.relativePath != null) {
+            Path parent = shortcut.toAbsolutePath().getParent();
+            return parent.resolve(link.relativePath.replace('\\', '/')).normalize().toString();
+        }
+        throw new IOException("Shortcut has no resolvable target: " + shortcut.getFileName());
+    }
+
+    public static ShellLink parse(byte[] data) throws IOException {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != HEADER_SIZE) {
+                throw new IOException("Not a shell link file");
+            }
+            int flags = buffer.getInt(20);
+            int position = HEADER_SIZE;
+
+            ShellLink link = new ShellLink();
+            if ((flags & HAS_LINK_TARGET_ID_LIST) != 0) {
+                int idListSize = buffer.getShort(position) & 0xFFFF;
+                link.idListPath = readIdList(buffer, position + 2, position + 2 + idListSize);
+                position += 2 + idListSize;
+            }
+
+            if ((flags & HAS_LINK_INFO) != 0) {
+                int linkInfoSize = buffer.getInt(position);
+                link.basePath = readLinkInfo(buffer, position);
+                position += linkInfoSize;
+            }
+
+            boolean unicode = (flags & IS_UNICODE) != 0;
+            if ((flags & HAS_NAME) != 0) {
+                position = skipStringData(buffer, position, unicode);
+            }
+            if ((flags & HAS_RELATIVE_PATH) != 0) {
+                int count = buffer.getShort(position) & 0xFFFF;
+                int length = unicode ? count * 2 : count;
+                link.relativePath = new String(data, position + 2, length, unicode ? StandardCharsets.UTF_16LE : ANSI);
+            }
+            return link;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Truncated shell link file", e);
+        }
+    }
+
+    private static String readLinkInfo(ByteBuffer buffer, int start) {
+        int headerSize = buffer.getInt(start + 4);
+        int linkInfoFlags = buffer.getInt(start + 8);
+        int commonPathSuffixOffset = buffer.getInt(start + 24);
+        boolean hasUnicodeOffsets = headerSize >= 0x24;
+
+        String suffix = hasUnicodeOffsets && buffer.getInt(start + 32) != 0
+                ? readUnicodeString(buffer, start + buffer.getInt(start + 32))
+                : readAnsiString(buffer, start + commonPathSuffixOffset);
+
+        if ((linkInfoFlags & VOLUME_ID_AND_LOCAL_BASE_PATH) != 0) {
+            String basePath = hasUnicodeOffsets && buffer.getInt(start + 28) != 0
+                    ? readUnicodeString(buffer, start + buffer.getInt(start + 28))
+                    : readAnsiString(buffer, start + buffer.getInt(start + 16));
+            return suffix.isEmpty() || basePath.endsWith("\\") ? basePath + suffix : basePath + "\\" + suffix;
+        }
+        if ((linkInfoFlags & COMMON_NETWORK_RELATIVE_LINK) != 0) {
+            int network = start + buffer.getInt(start + 20);
+            int netNameOffset = buffer.getInt(network + 8);
+            String netName = netNameOffset > 0x14
+                    ? readUnicodeString(buffer, network + buffer.getInt(network + 20))
+                    : readAnsiString(buffer, network + netNameOffset);
+            return suffix.isEmpty() ? netName : netName + "\\" + suffix;
+        }
+        return null;
+    }
+
+    private static String readIdList(ByteBuffer buffer, int start, int end) {
+        StringBuilder path = new StringBuilder();
+        int position = start;
+        while (position + 2 <= end) {
+            int itemSize = buffer.getShort(position) & 0xFFFF;
+            if (itemSize == 0) {
+                break;
+            }
+            int type = buffer.get(position + 2) & 0xFF;
+            if ((type & 0x70) == 0x20) {
+                path.setLength(0);
+                path.append(readAnsiString(buffer, position + 3));
+            } else if ((type & 0x70) == 0x30) {
+                if (path.length() == 0) {
+                    return null;
+                }
+                if (path.charAt(path.length() - 1) != '\\') {
+                    path.append('\\');
+                }
+                path.append(readFileEntryName(buffer, position, itemSize, (type & 0x04) != 0));
+            } else if (type != 0x1F) {
+                return null;
+            }
+            position += itemSize;
+        }
+        return path.length() == 0 ? null : path.toString();
+    }
+
+    private static String readFileEntryName(ByteBuffer buffer, int item, int itemSize, boolean unicodeName) {
+        int nameOffset = item + 14;
+        String primaryName = unicodeName ? readUnicodeString(buffer, nameOffset) : readAnsiString(buffer, nameOffset);
+        int extension = nameOffset + (unicodeName ? (primaryName.length() + 1) * 2 : primaryName.length() + 1);
+        extension += (extension - item) % 2;
+        if (extension + 8 > item + itemSize || buffer.getInt(extension + 4) != FILE_ENTRY_EXTENSION) {
+            return primaryName;
+        }
+        int version = buffer.getShort(extension + 2) & 0xFFFF;
+        int longName = extension + 18;
+        if (version >= 7) {
+            longName += 18;
+        }
+        if (version >= 3) {
+            longName += 2;
+        }
+        if (version >= 9) {
+            longName += 4;
+        }
+        if (version >= 8) {
+            longName += 4;
+        }
+        return longName < item + itemSize ? readUnicodeString(buffer, longName) : primaryName;
+    }
+
+    private static int skipStringData(ByteBuffer buffer, int position, boolean unicode) {
+        int count = buffer.getShort(position) & 0xFFFF;
+        return position + 2 + (unicode ? count * 2 : count);
+    }
+
+    private static String readAnsiString(ByteBuffer buffer, int offset) {
+        int end = offset;
+        while (buffer.get(end) != 0) {
+            end++;
+        }
+        byte[] bytes = new byte[end - offset];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, ANSI);
+    }
+
+    private static String readUnicodeString(ByteBuffer buffer, int offset) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = offset; buffer.getChar(i) != 0; i += 2) {
+            builder.append(buffer.getChar(i));
+        }
+        return builder.toString();
+    }
+
+    public static final class ShellLink {
+        private String basePath;
+        private String idListPath;
+        private String relativePath;
+
+        public String getBasePath() {
+            return basePath;
+        }
+
+        public String getIdListPath() {
+            return idListPath;
+        }
+
+        public String getRelativePath() {
+            return relativePath;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.akchi;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class SnapshotCache {
+
+    private final long maxBytes;
+    private final int maxEntries;
+    private final LinkedHashMap<String, Tree> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+
+    public SnapshotCache(long maxBytes, int maxEntries) {
+        this.maxBytes = maxBytes;
+        this.maxEntries = maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized Tree get(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(String key, Tree tree) {
+        invalidate(key);
+        if (tree == null || tree.size > maxBytes || maxEntries < 1) {
+            return;
+        }
+        entries.put(key, tree);
+        usedBytes += tree.size;
+        Iterator<Tree> eldest = entries.values().iterator();
+        while ((usedBytes > maxBytes || entries.size() > maxEntries) && eldest.hasNext()) {
+            usedBytes -= eldest.next().size;
+            eldest.remove();
+        }
+    }
+
+    public synchronized void invalidate(String key) {
+        Tree removed = entries.remove(key);
+        if (removed != null) {
+            usedBytes -= removed.size;
+        }
+    }
+
+    public synchronized void invalidate(Collection<String> keys) {
+        for (String key : keys) {
+            invalidate(key);
+        }
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public static Tree capture(Path root, long maxBytes, IoProgress progress) throws IOException {
+        Set<Path> dirs = new HashSet<>();
+        List<Path> files = new ArrayList<>();
+        long size = 0;
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.filter(path -> !path.equals(root))::iterator) {
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (attrs.isDirectory()) {
+                    dirs.add(root.relativize(path));
+                } else if (attrs.isRegularFile()) {
+                    files.add(path);
+                    size += attrs.size();
+                }
+                if (size > maxBytes) {
+                    return null;
+                }
+            }
+        }
+        Map<Path, CachedFile> contents = new HashMap<>();
+        for (Path file : files) {
+            progress.checkCancelled();
+            FileTime modified = Files.getLastModifiedTime(file);
+            byte[] content = progress.read(file);
+            progress.recordRead(content.length);
+            contents.put(root.relativize(file), new CachedFile(content, modified));
+        }
+        return new Tree(dirs, contents, size);
+    }
+
+    public static final class Tree {
+        private final Set<Path> dirs;
+        private final Map<Path, CachedFile> files;
+        private final long size;
+
+        private Tree(Set<Path> dirs, Map<Path, CachedFile> files, long size) {
+            this.dirs = dirs;
+            this.files = files;
+            this.size = size;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public boolean matches(Map<Path, BasicFileAttributes> scan) {
+            if (scan.size() != dirs.size() + files.size()) {
+                return false;
+            }
+            for (Path dir : dirs) {
+                BasicFileAttributes attrs = scan.get(dir);
+                if (attrs == null || !attrs.isDirectory()) {
+                    return false;
+                }
+            }
+            for (Map.Entry<Path, CachedFile> file : files.entrySet()) {
+                BasicFileAttributes attrs = scan.get(file.getKey());
+                if (attrs == null || !attrs.isRegularFile() || attrs.size() != file.getValue().content.length
+                        || !attrs.lastModifiedTime().equals(file.getValue().modified)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public void writeTo(Path target, IoProgress progress) throws IOException {
+            Files.createDirectories(target);
+            List<Path> existing = new ArrayList<>();
+            try (Stream<Path> paths = Files.walk(target)) {
+                paths.filter(path -> !path.equals(target)).forEach(existing::add);
+            }
+            existing.sort(Comparator.reverseOrder());
+            for (Path path : existing) {
+                Path relative = target.relativize(path);
+                boolean keep = Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS) ? dirs.contains(relative) : files.containsKey(relative);
+                if (!keep) {
+                    Files.deleteIfExists(path);
+                }
+            }
+            for (Path dir : dirs) {
+                Files.createDirectories(target.resolve(dir));
+            }
+
+            int done = 0;
+            for (Map.Entry<Path, CachedFile> file : files.entrySet()) {
+                progress.checkCancelled();
+                progress.update(done++, files.size());
+                Path targetPath = target.resolve(file.getKey());
+                CachedFile cached = file.getValue();
+                if (Files.isRegularFile(targetPath)
+                        && Files.size(targetPath) == cached.content.length
+                        && Files.getLastModifiedTime(targetPath).equals(cached.modified)) {
+                    progress.recordSkipped(0);
+                    continue;
+                }
+                progress.write(targetPath, cached.content);
+                Files.setLastModifiedTime(targetPath, cached.modified);
+                progress.recordCopied(0, cached.content.length);
+            }
+        }
+    }
+
+    private static final class CachedFile {
+        private final byte[] content;
+        private final FileTime modified;
+
+        private CachedFile(byte[] content, FileTime modified) {
+            this.content = content;
+            this.modified = modified;
+        }
+    }
+}
@@ -0,0 +1,624 @@
+package com.akchi;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class SnapshotEngine implements Closeable {
+
+    public static final String CONTINUE_SAV = "continue.sav";
+    private static final String VERIFY_CONTENT = "verify_content";
+    private static final String BACKUP_STORAGE = "backup_storage";
+    private static final String SNAPSHOT_TRIGGER = "snapshot_trigger";
+    private static final String QUIET_WINDOW_MS = "quiet_window_ms";
+    private static final String DELTA_PATTERNS = "delta_patterns";
+    private static final String DELTA_KEYFRAME_INTERVAL = "delta_keyframe_interval";
+    private static final String SNAPSHOT_FINGERPRINT = "snapshot_fingerprint";
+    private static final String SNAPSHOT_CACHE_MB = "snapshot_cache_mb";
+    private static final String SNAPSHOT_CACHE_ENTRIES = "snapshot_cache_entries";
+    private static final String SNAPSHOT_MAX_DEFER_MS = "snapshot_max_defer_ms";
+    private static final String BACKUP_LOCK_TIMEOUT_MS = "backup_lock_timeout_ms";
+    private static final int PRUNE_BATCH = 20;
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final Profile profile;
+    private final SnapshotScheduler scheduler;
+    private final boolean ownsScheduler;
+    private final File configFile;
+    private final File ftlFolder;
+    private final File autosaveFolder;
+    private final File backupFolder;
+    private final ConfigStore configStore;
+    private final ParallelCopier copier;
+    private final SnapshotSync snapshotSync;
+    private final BackupStorage backupStorage;
+    private final BackupCatalog backupCatalog;
+    private final SnapshotExecutor snapshotExecutor;
+    private final SnapshotMetrics metrics;
+    private final TreeFingerprint ftlFingerprint;
+    private final RetentionPolicy retentionPolicy;
+    private final AtomicBoolean pruneQueued = new AtomicBoolean();
+    private final SnapshotCache snapshotCache;
+    private final SaveIndex saveIndex;
+    private final IoThrottle ioThrottle;
+    private final BackupLock backupLock;
+    private volatile long deferredSince;
+    private volatile String autosaveBackupId;
+    private ScheduledFuture<?> backupTimer;
+    private ScheduledFuture<?> deferredSnapshot;
+    private SaveWatcher saveWatcher;
+
+    public SnapshotEngine(Executor callbackExecutor) {
+        this(Profile.defaultProfile(), null, callbackExecutor);
+    }
+
+    public SnapshotEngine(File configFile, File ftlFolder, File autosaveFolder, File backupFolder, Executor callbackExecutor) {
+        this(new Profile(Profile.DEFAULT, configFile, ftlFolder, autosaveFolder, backupFolder), null, callbackExecutor);
+    }
+
+    public SnapshotEngine(Profile profile, SnapshotScheduler scheduler, Executor callbackExecutor) {
+        if (scheduler == null && !profile.isDefault()) {
+            throw new IllegalArgumentException("Profile " + profile.getName() + " needs a scheduler built from the main config");
+        }
+        this.profile = profile;
+        this.configFile = profile.getConfigFile();
+        this.ftlFolder = profile.getFtlFolder();
+        this.autosaveFolder = profile.getAutosaveFolder();
+        this.backupFolder = profile.getBackupFolder();
+        this.configStore = new ConfigStore(configFile, 500);
+        this.ownsScheduler = scheduler == null;
+        this.scheduler = ownsScheduler ? SnapshotScheduler.fromConfig(configStore) : scheduler;
+        this.copier = this.scheduler.getCopier();
+        this.ftlFingerprint = this.scheduler.fingerprintFor(ftlFolder.toPath());
+        this.snapshotSync = new SnapshotSync(configStore.getBoolean(VERIFY_CONTENT, false), copier);
+        String storageMode = configStore.getString(BACKUP_STORAGE, null);
+        if (storageMode == null) {
+            storageMode = defaultStorageMode();
+            configStore.set(BACKUP_STORAGE, storageMode);
+        }
+        this.backupStorage = createBackupStorage(storageMode);
+        this.backupCatalog = new BackupCatalog(new File(backupFolder, "catalog-" + storageMode + ".jsonl").toPath(), backupStorage);
+        this.snapshotExecutor = new SnapshotExecutor(this.scheduler.lane(profile.getName()), callbackExecutor);
+        this.retentionPolicy = RetentionPolicy.fromConfig(configStore);
+        this.snapshotCache = new SnapshotCache(configStore.getLong(SNAPSHOT_CACHE_MB, 32) * 1024 * 1024, configStore.getInt(SNAPSHOT_CACHE_ENTRIES, 5));
+        this.metrics = profile.isDefault()
+                ? new SnapshotMetrics(new File(configFile.getParentFile(), "metrics.jsonl").toPath(), 1024 * 1024, 3)
+                : new SnapshotMetrics(profile.getName(), new File(configFile.getParentFile(), "metrics-" + profile.getName() + ".jsonl").toPath(), 1024 * 1024, 3);
+        this.ioThrottle = this.scheduler.getThrottle();
+        this.saveIndex = new SaveIndex(new File(backupFolder, "save-index.bin").toPath());
+        this.backupLock = new BackupLock(new File(backupFolder, ".lock").toPath(), configStore.getLong(BACKUP_LOCK_TIMEOUT_MS, 30_000));
+        backupCatalog.load();
+        saveIndex.load();
+        recoverInterruptedRestore();
+    }
+
+    private String defaultStorageMode() {
+        File[] folders = backupFolder.listFiles(file -> file.isDirectory() && !file.getName().startsWith("."));
+        if (folders != null && folders.length > 0) {
+            logger.log(Level.INFO, "Found {0} existing folder backups, keeping the folders storage mode", folders.length);
+            return "folders";
+        }
+        return "objects";
+    }
+
+    private BackupStorage createBackupStorage(String mode) {
+        if ("folders".equals(mode)) {
+            return new FolderBackupStorage(backupFolder, snapshotSync);
+        }
+        if ("linked".equals(mode)) {
+            return new FolderBackupStorage(backupFolder, snapshotSync, true);
+        }
+        if ("pack".equals(mode)) {
+            return new PackBackupStorage(new File(backupFolder, "backups.pack").toPath());
+        }
+        List<String> deltaPatterns = new ArrayList<>();
+        for (String pattern : configStore.getString(DELTA_PATTERNS, CONTINUE_SAV).split(",")) {
+            if (!pattern.isBlank()) {
+                deltaPatterns.add(pattern.trim());
+            }
+        }
+        return new ObjectBackupStorage(new File(backupFolder, ".store").toPath(), deltaPatterns, configStore.getInt(DELTA_KEYFRAME_INTERVAL, 10));
+    }
+
+    public Profile getProfile() {
+        return profile;
+    }
+
+    public ConfigStore getConfig() {
+        return configStore;
+    }
+
+    public BackupStorage getStorage() {
+        return backupStorage;
+    }
+
+    public SnapshotMetrics getMetrics() {
+        return metrics;
+    }
+
+    public BackupCatalog getCatalog() {
+        return backupCatalog;
+    }
+
+    public SaveIndex getSaveIndex() {
+        return saveIndex;
+    }
+
+    public File getFtlFolder() {
+        return ftlFolder;
+    }
+
+    public File getAutosaveFolder() {
+        return autosaveFolder;
+    }
+
+    public void ensureFoldersExist() {
+        if (!autosaveFolder.exists()) {
+            autosaveFolder.mkdirs();
+        }
+        if (!backupFolder.exists()) {
+            backupFolder.mkdirs();
+        }
+        if (!configFile.getParentFile().exists()) {
+            logger.info("Creating directory: " + configFile.getParentFile().getAbsolutePath());
+            configFile.getParentFile().mkdirs();
+        }
+
+        if (!configFile.exists()) {
+            try {
+                if (configFile.createNewFile()) {
+                    logger.info("Created file: " + configFile.getAbsolutePath());
+                } else {
+                    logger.info("File already exists: " + configFile.getAbsolutePath());
+                }
+            } catch (IOException e) {
+                logger.info(e.getMessage());
+            }
+        }
+    }
+
+    public boolean hasAutosave() {
+        return new File(autosaveFolder, CONTINUE_SAV).isFile();
+    }
+
+    public IoProgress submit(String operation, String label, SnapshotExecutor.IoTask task, IoListener listener) {
+        long queuedAt = System.nanoTime();
+        return snapshotExecutor.submit(label, progress -> measure(operation, queuedAt, progress, task), listener);
+    }
+
+    public void run(String operation, SnapshotExecutor.IoTask task) throws IOException {
+        measure(operation, System.nanoTime(), IoProgress.none(), task);
+    }
+
+    public boolean hasFolderImport() {
+        return backupStorage instanceof PackBackupStorage
+                && !((PackBackupStorage) backupStorage).pendingFolderImports(backupFolder).isEmpty();
+    }
+
+    public void importFolderBackups(IoProgress progress) throws IOException {
+        if (!(backupStorage instanceof PackBackupStorage)) {
+            return;
+        }
+        progress.setThrottle(ioThrottle);
+        backupLock.lock();
+        try {
+            for (String backupId : ((PackBackupStorage) backupStorage).importFolderBackups(backupFolder, progress)) {
+                backupCatalog.add(backupStorage.describeBackup(backupId));
+            }
+        } finally {
+            backupLock.unlock();
+        }
+    }
+
+    public void submitInitialSnapshot() {
+        submit("snapshot", "Initial snapshot", progress -> {
+            progress.setThrottle(ioThrottle);
+            backupLock.lock();
+            try {
+                if (!hasAutosave()) {
+                    copyFolder(ftlFolder, autosaveFolder, progress);
+                }
+                if (backupCatalog.isEmpty()) {
+                    createBackup(progress.getThrottle());
+                }
+            } finally {
+                backupLock.unlock();
+            }
+        }, null);
+    }
+
+    public boolean submitSnapshot(IoListener listener) {
+        long now = System.currentTimeMillis();
+        long busyMillis = saveActivityRemaining(now);
+        if (busyMillis > 0) {
+            if (deferredSince == 0) {
+                deferredSince = now;
+            }
+            if (now - deferredSince < configStore.getLong(SNAPSHOT_MAX_DEFER_MS, 30_000) && deferSnapshot(listener, busyMillis)) {
+                return false;
+            }
+        }
+        if (deferredSince != 0) {
+            logger.log(Level.FINE, "Snapshot deferred for {0} ms while FTL was saving.", now - deferredSince);
+            deferredSince = 0;
+        }
+        long queuedAt = System.nanoTime();
+        return snapshotExecutor.submitSnapshot(progress -> {
+            progress.setThrottle(ioThrottle);
+            measure("snapshot", queuedAt, progress, this::snapshot);
+        }, listener);
+    }
+
+    private long saveActivityRemaining(long now) {
+        try {
+            long modified = Files.getLastModifiedTime(ftlFolder.toPath().resolve(CONTINUE_SAV)).toMillis();
+            long quietMillis = configStore.getInt(QUIET_WINDOW_MS, 2000);
+            return Math.min(modified + quietMillis - now, quietMillis);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private synchronized boolean deferSnapshot(IoListener listener, long delayMillis) {
+        if (backupTimer == null) {
+            return false;
+        }
+        if (deferredSnapshot == null) {
+            deferredSnapshot = scheduler.getTimers().schedule(() -> {
+                synchronized (this) {
+                    deferredSnapshot = null;
+                }
+                submitSnapshot(listener);
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    private void measure(String operation, long queuedAt, IoProgress progress, SnapshotExecutor.IoTask task) throws IOException {
+        long startedAt = System.nanoTime();
+        boolean failed = false;
+        try {
+            task.run(progress);
+        } catch (IOException | RuntimeException e) {
+            failed = !(e instanceof CancellationException);
+            throw e;
+        } finally {
+            metrics.record(operation, startedAt - queuedAt, System.nanoTime() - startedAt, progress, failed);
+        }
+    }
+
+    public void snapshot(IoProgress progress) throws IOException {
+        String fingerprint = ftlFingerprint.compute(ftlFolder.toPath(), progress);
+        if (fingerprint.equals(configStore.getString(SNAPSHOT_FINGERPRINT, null)) && !backupCatalog.isEmpty()) {
+            logger.log(Level.FINE, "Save folder unchanged since the last snapshot ({0} files hashed), skipping.", ftlFingerprint.getFilesHashed());
+            return;
+        }
+        backupLock.lock();
+        try {
+            copyFolder(ftlFolder, autosaveFolder, progress);
+            createBackup(progress.getThrottle());
+        } finally {
+            backupLock.unlock();
+        }
+        configStore.set(SNAPSHOT_FINGERPRINT, fingerprint);
+        logger.info("Backup and copy operation completed.");
+    }
+
+    public void restoreBackup(String backupId, IoProgress progress) throws IOException {
+        backupLock.lock();
+        try {
+            BackupManifest expected = backupStorage.describeFiles(backupId);
+            SnapshotCache.Tree cached = snapshotCache.get(backupId);
+            Path staging = prepareStaging();
+            try {
+                if (cached != null) {
+                    cached.writeTo(staging, progress);
+                } else {
+                    backupStorage.restoreBackup(backupId, staging, progress);
+                }
+                expected.verify(staging);
+                swapIntoLive(staging);
+            } finally {
+                FileTrees.deleteRecursively(staging);
+            }
+            logger.log(Level.INFO, "Restored backup from {0}{1}", new Object[]{backupId, cached != null ? " (memory)" : ""});
+        } finally {
+            backupLock.unlock();
+        }
+    }
+
+    public void quickRestart(IoProgress progress) throws IOException {
+        backupLock.lock();
+        try {
+            if (!autosaveFolder.isDirectory()) {
+                throw new IOException("Source folder not found: " + autosaveFolder);
+            }
+            Map<Path, BasicFileAttributes> expected = copier.scan(autosaveFolder.toPath());
+            String backupId = autosaveBackupId;
+            SnapshotCache.Tree cached = backupId == null ? null : snapshotCache.get(backupId);
+            boolean fromMemory = cached != null && cached.matches(expected);
+            Path staging = prepareStaging();
+            try {
+                if (fromMemory) {
+                    cached.writeTo(staging, progress);
+                } else {
+                    snapshotSync.sync(autosaveFolder.toPath(), staging, progress);
+                }
+                checkStaged(staging, expected);
+                swapIntoLive(staging);
+            } finally {
+                FileTrees.deleteRecursively(staging);
+            }
+            logger.log(Level.INFO, "Restart operation completed successfully{0}.", fromMemory ? " (memory)" : "");
+        } finally {
+            backupLock.unlock();
+        }
+    }
+
+    public void rollbackRestore() throws IOException {
+        backupLock.lock();
+        try {
+            Path previous = siblingOfLive("previous");
+            if (!Files.isDirectory(previous)) {
+                throw new IOException("No earlier save folder to roll back to");
+            }
+            Path staging = prepareStaging();
+            Files.move(previous, staging, StandardCopyOption.ATOMIC_MOVE);
+            swapIntoLive(staging);
+            logger.info("Rolled the save folder back to its state before the last restore.");
+        } finally {
+            backupLock.unlock();
+        }
+    }
+
+    private Path siblingOfLive(String suffix) {
+        Path live = ftlFolder.toPath().toAbsolutePath();
+        return live.resolveSibling("." + live.getFileName() + "." + suffix);
+    }
+
+    private Path prepareStaging() throws IOException {
+        Path staging = siblingOfLive("restore");
+        FileTrees.deleteRecursively(staging);
+        return staging;
+    }
+
+    private void checkStaged(Path staging, Map<Path, BasicFileAttributes> expected) throws IOException {
+        Map<Path, BasicFileAttributes> staged = copier.scan(staging);
+        for (Map.Entry<Path, BasicFileAttributes> entry : expected.entrySet()) {
+            BasicFileAttributes attrs = staged.get(entry.getKey());
+            if (attrs == null || attrs.isDirectory() != entry.getValue().isDirectory()
+                    || (!attrs.isDirectory() && attrs.size() != entry.getValue().size())) {
+                throw new IOException("Restored files do not match the snapshot: " + entry.getKey());
+            }
+        }
+        if (staged.size() != expected.size()) {
+            throw new IOException("Restored files do not match the snapshot: " + staged.size() + " entries, expected " + expected.size());
+        }
+    }
+
+    private synchronized void swapIntoLive(Path staging) throws IOException {
+        Path live = ftlFolder.toPath().toAbsolutePath();
+        Path previous = siblingOfLive("previous");
+        boolean watching = saveWatcher != null && saveWatcher.isRunning();
+        if (watching) {
+            saveWatcher.close();
+        }
+        try {
+            FileTrees.deleteRecursively(previous);
+            boolean hadLive = Files.exists(live);
+            if (hadLive) {
+                Files.move(live, previous, StandardCopyOption.ATOMIC_MOVE);
+            }
+            try {
+                Files.move(staging, live, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                if (hadLive) {
+                    Files.move(previous, live, StandardCopyOption.ATOMIC_MOVE);
+                }
+                throw e;
+            }
+        } finally {
+            if (watching) {
+                try {
+                    saveWatcher.start();
+                } catch (IOException e) {
+                    logger.log(Level.INFO, "Could not resume the save watcher: {0}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void recoverInterruptedRestore() {
+        Path previous = siblingOfLive("previous");
+        if (!ftlFolder.exists() && Files.isDirectory(previous)) {
+            try {
+                Files.move(previous, ftlFolder.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                logger.info("Recovered the save folder from an interrupted restore.");
+            } catch (IOException e) {
+                logger.info(e.getMessage());
+            }
+        }
+    }
+
+    public List<String> prune(int keep) throws IOException {
+        List<BackupInfo> backups = backupCatalog.newestFirst();
+        List<String> pruned = new ArrayList<>();
+        for (int i = Math.max(1, keep); i < backups.size(); i++) {
+            pruned.add(backups.get(i).getId());
+        }
+        deleteBackups(pruned);
+        return pruned;
+    }
+
+    public List<String> pruneExpired() throws IOException {
+        List<String> expired = retentionPolicy.selectExpired(backupCatalog.newestFirst(), Instant.now());
+        deleteBackups(expired);
+        return expired;
+    }
+
+    private void schedulePrune() {
+        if (retentionPolicy.isEnabled() && pruneQueued.compareAndSet(false, true)) {
+            submit("prune", "Prune", this::pruneBatch, null);
+        }
+    }
+
+    private void pruneBatch(IoProgress progress) throws IOException {
+        pruneQueued.set(false);
+        Thread writer = Thread.currentThread();
+        int priority = writer.getPriority();
+        writer.setPriority(Thread.MIN_PRIORITY);
+        try {
+            List<String> expired = retentionPolicy.selectExpired(backupCatalog.newestFirst(), Instant.now());
+            deleteBackups(expired.subList(0, Math.min(PRUNE_BATCH, expired.size())));
+            if (expired.size() > PRUNE_BATCH) {
+                schedulePrune();
+            }
+        } finally {
+            writer.setPriority(priority);
+        }
+    }
+
+    private void deleteBackups(List<String> backupIds) throws IOException {
+        if (backupIds.isEmpty()) {
+            return;
+        }
+        BackupInfo newest = backupCatalog.latest();
+        if (newest != null && backupIds.contains(newest.getId())) {
+            throw new IllegalStateException("Refusing to delete the newest backup " + newest.getId());
+        }
+        backupLock.lock();
+        try {
+            snapshotCache.invalidate(backupIds);
+            backupStorage.deleteBackups(backupIds);
+            backupCatalog.remove(backupIds);
+            saveIndex.remove(backupIds);
+        } finally {
+            backupLock.unlock();
+        }
+        logger.log(Level.INFO, "Pruned {0} backups.", backupIds.size());
+    }
+
+    public synchronized void startAutosave(int intervalMinutes, IoListener snapshotListener) {
+        cancelTimers();
+        boolean watching = "watch".equals(configStore.getString(SNAPSHOT_TRIGGER, "watch")) && startSaveWatcher(snapshotListener);
+        logger.log(Level.INFO, "Backup interval set to {0} minutes.", intervalMinutes);
+        backupTimer = scheduler.getTimers().scheduleAtFixedRate(() -> {
+            try {
+                if (!watching || saveWatcher.hasPendingChange()) {
+                    submitSnapshot(snapshotListener);
+                }
+            } catch (RuntimeException e) {
+                logger.log(Level.INFO, "Scheduled snapshot failed: {0}", e.getMessage());
+            }
+        }, 0, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    private boolean startSaveWatcher(IoListener snapshotListener) {
+        if (saveWatcher == null) {
+            saveWatcher = new SaveWatcher(scheduler, ftlFolder.toPath(), CONTINUE_SAV, configStore.getInt(QUIET_WINDOW_MS, 2000), () -> submitSnapshot(snapshotListener));
+        }
+        try {
+            saveWatcher.start();
+            return true;
+        } catch (IOException e) {
+            logger.log(Level.INFO, "Save watcher unavailable, falling back to the interval timer: {0}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void createBackup(IoThrottle throttle) throws IOException {
+        String backupId = nextBackupId();
+        IoProgress backupProgress = IoProgress.none();
+        backupProgress.setThrottle(throttle);
+        measure("backup", System.nanoTime(), backupProgress, progress -> {
+            BackupInfo info = backupStorage.createBackup(autosaveFolder.toPath(), backupId, progress);
+            backupCatalog.add(info);
+            snapshotCache.put(info.getId(), SnapshotCache.capture(autosaveFolder.toPath(), snapshotCache.getMaxBytes(), progress));
+            indexSave(info.getId());
+            autosaveBackupId = info.getId();
+        });
+        schedulePrune();
+    }
+
+    private String nextBackupId() {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd, hh-mm-ss a"));
+        String backupId = timestamp;
+        for (int n = 2; backupCatalog.get(backupId) != null; n++) {
+            backupId = timestamp + " (" + n + ")";
+        }
+        return backupId;
+    }
+
+    private void indexSave(String backupId) {
+        Path continueSav = autosaveFolder.toPath().resolve(CONTINUE_SAV);
+        if (!Files.isRegularFile(continueSav)) {
+            return;
+        }
+        try {
+            saveIndex.add(backupId, SaveMetadata.read(continueSav));
+        } catch (IOException e) {
+            logger.log(Level.INFO, "Could not index {0}: {1}", new Object[]{backupId, e.getMessage()});
+        }
+    }
+
+    private void copyFolder(File sourceFolder, File targetFolder, IoProgress progress) throws IOException {
+        if (!sourceFolder.isDirectory()) {
+            throw new IOException("Source folder not found: " + sourceFolder);
+        }
+        SnapshotSync.SyncResult result = snapshotSync.sync(sourceFolder.toPath(), targetFolder.toPath(), progress);
+        logger.log(Level.INFO, "Synced {0}: {1}", new Object[]{targetFolder.getName(), result});
+    }
+
+    public synchronized void stopAutosave() {
+        if (backupTimer != null) {
+            logger.info("Stopped scheduled snapshots.");
+        }
+        cancelTimers();
+        if (saveWatcher != null) {
+            try {
+                saveWatcher.close();
+            } catch (IOException e) {
+                logger.info(e.getMessage());
+            }
+        }
+    }
+
+    private void cancelTimers() {
+        if (backupTimer != null) {
+            backupTimer.cancel(false);
+            backupTimer = null;
+        }
+        if (deferredSnapshot != null) {
+            deferredSnapshot.cancel(false);
+            deferredSnapshot = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        stopAutosave();
+        snapshotExecutor.shutdown();
+        metrics.close();
+        configStore.flush();
+        if (ownsScheduler) {
+            scheduler.close();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.akchi;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class SnapshotExecutor {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final SnapshotScheduler.Lane writer;
+    private final Executor callbackExecutor;
+    private final AtomicBoolean snapshotQueued = new AtomicBoolean();
+
+    public SnapshotExecutor(SnapshotScheduler.Lane writer, Executor callbackExecutor) {
+        this.writer = writer;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    public IoProgress submit(String label, IoTask task, IoListener listener) {
+        IoProgress progress = new IoProgress(listener, callbackExecutor);
+        writer.execute(() -> run(label, task, progress));
+        return progress;
+    }
+
+    public boolean submitSnapshot(IoTask task, IoListener listener) {
+        if (!snapshotQueued.compareAndSet(false, true)) {
+            logger.fine("Snapshot already queued, skipping.");
+            return false;
+        }
+        IoProgress progress = new IoProgress(listener, callbackExecutor);
+        writer.execute(() -> {
+            snapshotQueued.set(false);
+            run("snapshot", task, progress);
+        });
+        return true;
+    }
+
+    private void run(String label, IoTask task, IoProgress progress) {
+        if (progress.isCancelled()) {
+            progress.finish(true, null);
+            return;
+        }
+        try {
+            task.run(progress);
+            progress.finish(false, null);
+        } catch (CancellationException e) {
+            logger.log(Level.INFO, "{0} cancelled.", label);
+            progress.finish(true, null);
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.INFO, "{0} failed: {1}", new Object[]{label, e.getMessage()});
+            progress.finish(false, e);
+        }
+    }
+
+    public void shutdown() {
+        writer.shutdown(10, TimeUnit.SECONDS);
+    }
+
+    public interface IoTask {
+        void run(IoProgress progress) throws IOException;
+    }
+}
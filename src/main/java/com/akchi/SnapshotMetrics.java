@@ -0,0 +1,155 @@
+package com.akchi;
+
+import com.google.gson.JsonObject;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class SnapshotMetrics {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final Path logFile;
+    private final long maxLogBytes;
+    private final int keepLogs;
+    private final Map<String, OperationMetrics> operations = new LinkedHashMap<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private final String profile;
+
+    public SnapshotMetrics(Path logFile, long maxLogBytes, int keepLogs) {
+        this(null, logFile, maxLogBytes, keepLogs);
+    }
+
+    public SnapshotMetrics(String profile, Path logFile, long maxLogBytes, int keepLogs) {
+        this.profile = profile;
+        this.logFile = logFile;
+        this.maxLogBytes = maxLogBytes;
+        this.keepLogs = keepLogs;
+    }
+
+    public void record(String operation, long queueNanos, long durationNanos, IoProgress progress, boolean failed) {
+        operationMetrics(operation).record(queueNanos, durationNanos, progress, failed);
+
+        JsonObject line = new JsonObject();
+        line.addProperty("time", Instant.now().toString());
+        line.addProperty("operation", operation);
+        line.addProperty("durationMs", TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        line.addProperty("queueWaitMs", TimeUnit.NANOSECONDS.toMillis(queueNanos));
+        line.addProperty("bytesRead", progress.getBytesRead());
+        line.addProperty("bytesWritten", progress.getBytesWritten());
+        line.addProperty("filesCopied", progress.getFilesCopied());
+        line.addProperty("filesSkipped", progress.getFilesSkipped());
+        line.addProperty("failed", failed);
+        appendLog(line.toString());
+    }
+
+    public synchronized List<OperationMetrics> getOperations() {
+        return new ArrayList<>(operations.values());
+    }
+
+    public String summary() {
+        StringBuilder summary = new StringBuilder();
+        long written = 0;
+        for (OperationMetrics metrics : getOperations()) {
+            if (summary.length() > 0) {
+                summary.append(" | ");
+            }
+            summary.append(metrics.getOperation()).append(' ').append(metrics.getCount()).append("x p95 ")
+                    .append(metrics.getP95Millis()).append(" ms");
+            if (metrics.getFailures() > 0) {
+                summary.append(", ").append(metrics.getFailures()).append(" failed");
+            }
+            written += metrics.getBytesWritten();
+        }
+        if (summary.length() == 0) {
+            return "";
+        }
+        return summary.append(" | ").append(written / 1024).append(" KB written").toString();
+    }
+
+    private synchronized OperationMetrics operationMetrics(String operation) {
+        OperationMetrics metrics = operations.get(operation);
+        if (metrics == null) {
+            metrics = new OperationMetrics(operation);
+            operations.put(operation, metrics);
+            register(metrics);
+        }
+        return metrics;
+    }
+
+    private void register(OperationMetrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.akchi:type=SnapshotMetrics,"
+                    + (profile == null ? "" : "profile=" + ObjectName.quote(profile) + ",")
+                    + "operation=" + ObjectName.quote(metrics.getOperation()));
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(metrics, name);
+            registered.add(name);
+        } catch (JMException e) {
+            logger.log(Level.INFO, "Could not register metrics for {0}: {1}", new Object[]{metrics.getOperation(), e.getMessage()});
+        }
+    }
+
+    private synchronized void appendLog(String line) {
+        try {
+            Files.createDirectories(logFile.getParent());
+            if (Files.isRegularFile(logFile) && Files.size(logFile) >= maxLogBytes) {
+                rotateLogs();
+            }
+            try (Writer writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            logger.info(e.getMessage());
+        }
+    }
+
+    private void rotateLogs() throws IOException {
+        Files.deleteIfExists(rotatedLog(keepLogs));
+        for (int i = keepLogs - 1; i >= 1; i--) {
+            if (Files.exists(rotatedLog(i))) {
+                Files.move(rotatedLog(i), rotatedLog(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(logFile, rotatedLog(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path rotatedLog(int generation) {
+        String name = logFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String rotated = dot < 0 ? name + "." + generation : name.substring(0, dot) + "." + generation + name.substring(dot);
+        return logFile.resolveSibling(rotated);
+    }
+
+    public synchronized void close() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                logger.info(e.getMessage());
+            }
+        }
+        registered.clear();
+    }
+}
@@ -0,0 +1,227 @@
+package com.akchi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Threads shared by every profile; each profile runs its tasks on its own lane.
+public class SnapshotScheduler implements Closeable {
+
+    private static final String IO_WORKERS = "io_workers";
+    private static final String COPY_PARALLELISM = "copy_parallelism";
+    private static final String IO_MAX_BYTES_PER_SECOND = "io_max_bytes_per_second";
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ftl-snapshot-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LinkedBlockingQueue<Lane> ready = new LinkedBlockingQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final ParallelCopier copier;
+    private final IoThrottle throttle;
+    private final Map<Path, TreeFingerprint> fingerprints = new ConcurrentHashMap<>();
+    private final Map<WatchKey, List<Consumer<List<WatchEvent<?>>>>> watchers = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Thread watchThread;
+
+    public SnapshotScheduler(int workerCount, int copyParallelism, long maxBytesPerSecond) {
+        this.copier = new ParallelCopier(copyParallelism);
+        this.throttle = new IoThrottle(maxBytesPerSecond);
+        for (int i = 0; i < Math.max(1, workerCount); i++) {
+            Thread worker = new Thread(this::workLoop, "ftl-snapshot-writer-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    public static SnapshotScheduler fromConfig(ConfigStore config) {
+        return new SnapshotScheduler(config.getInt(IO_WORKERS, 2), config.getInt(COPY_PARALLELISM, ParallelCopier.defaultParallelism()),
+                config.getLong(IO_MAX_BYTES_PER_SECOND, 8L * 1024 * 1024));
+    }
+
+    public ScheduledExecutorService getTimers() {
+        return timers;
+    }
+
+    public ParallelCopier getCopier() {
+        return copier;
+    }
+
+    public IoThrottle getThrottle() {
+        return throttle;
+    }
+
+    public TreeFingerprint fingerprintFor(Path root) {
+        return fingerprints.computeIfAbsent(root.toAbsolutePath().normalize(), key -> new TreeFingerprint());
+    }
+
+    public Lane lane(String name) {
+        return new Lane(name);
+    }
+
+    public synchronized WatchKey watch(Path folder, Consumer<List<WatchEvent<?>>> onEvents) throws IOException {
+        if (watchService == null) {
+            watchService = FileSystems.getDefault().newWatchService();
+            watchThread = new Thread(this::watchLoop, "ftl-save-watcher");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        }
+        WatchKey key = folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchers.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(onEvents);
+        return key;
+    }
+
+    public synchronized void unwatch(WatchKey key, Consumer<List<WatchEvent<?>>> onEvents) {
+        List<Consumer<List<WatchEvent<?>>>> handlers = watchers.get(key);
+        if (handlers != null) {
+            handlers.remove(onEvents);
+            if (!handlers.isEmpty()) {
+                return;
+            }
+            watchers.remove(key);
+        }
+        key.cancel();
+    }
+
+    private void watchLoop() {
+        WatchService service;
+        synchronized (this) {
+            service = watchService;
+        }
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = service.take();
+                List<WatchEvent<?>> events = key.pollEvents();
+                List<Consumer<List<WatchEvent<?>>>> handlers = watchers.get(key);
+                if (handlers != null) {
+                    for (Consumer<List<WatchEvent<?>>> handler : handlers) {
+                        try {
+                            handler.accept(events);
+                        } catch (RuntimeException e) {
+                            logger.info(e.getMessage());
+                        }
+                    }
+                }
+                if (!key.reset() && watchers.remove(key) != null) {
+                    logger.log(Level.INFO, "Stopped watching {0}: folder is no longer accessible", key.watchable());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.fine("Save watcher closed.");
+        }
+    }
+
+    private void workLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Lane lane = ready.take();
+                Runnable task;
+                synchronized (lane) {
+                    task = lane.tasks.poll();
+                }
+                if (task != null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        logger.log(Level.INFO, "Task on {0} failed: {1}", new Object[]{lane.name, e.getMessage()});
+                    }
+                }
+                synchronized (lane) {
+                    if (lane.tasks.isEmpty()) {
+                        lane.queued = false;
+                        lane.notifyAll();
+                    } else {
+                        ready.add(lane);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        timers.shutdownNow();
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.info(e.getMessage());
+            }
+            watchThread.interrupt();
+            watchService = null;
+        }
+    }
+
+    public final class Lane implements Executor {
+        private final String name;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean queued;
+        private boolean shutdown;
+
+        private Lane(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public synchronized void execute(Runnable task) {
+            if (shutdown) {
+                throw new RejectedExecutionException(name + " is shut down");
+            }
+            tasks.add(task);
+            if (!queued) {
+                queued = true;
+                ready.add(this);
+            }
+        }
+
+        public synchronized void shutdown(long timeout, TimeUnit unit) {
+            shutdown = true;
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            try {
+                while (queued) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        logger.log(Level.INFO, "Dropping {0} queued tasks on {1}", new Object[]{tasks.size(), name});
+                        tasks.clear();
+                        return;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            } catch (InterruptedException e) {
+                tasks.clear();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.akchi;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class SnapshotSync {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final boolean compareContent;
+    private final ParallelCopier copier;
+
+    public SnapshotSync(boolean compareContent) {
+        this(compareContent, new ParallelCopier(ParallelCopier.defaultParallelism()));
+    }
+
+    public SnapshotSync(boolean compareContent, ParallelCopier copier) {
+        this.compareContent = compareContent;
+        this.copier = copier;
+    }
+
+    public SyncResult sync(Path source, Path target) throws IOException {
+        return sync(source, target, IoProgress.none());
+    }
+
+    public SyncResult sync(Path source, Path target, IoProgress progress) throws IOException {
+        SyncResult result = new SyncResult();
+        Map<Path, BasicFileAttributes> sourceEntries = copier.scan(source);
+        Map<Path, BasicFileAttributes> targetEntries = copier.scan(target);
+
+        if (!Files.isDirectory(target)) {
+            Files.createDirectories(target);
+        }
+
+        List<Path> stale = new ArrayList<>();
+        for (Map.Entry<Path, BasicFileAttributes> entry : targetEntries.entrySet()) {
+            BasicFileAttributes sourceAttrs = sourceEntries.get(entry.getKey());
+            if (sourceAttrs == null || sourceAttrs.isDirectory() != entry.getValue().isDirectory()) {
+                stale.add(entry.getKey());
+            }
+        }
+        stale.sort(Comparator.reverseOrder());
+        for (Path relative : stale) {
+            FileTrees.deleteRecursively(target.resolve(relative));
+            targetEntries.remove(relative);
+            result.filesDeleted++;
+        }
+
+        List<Path> ordered = new ArrayList<>(sourceEntries.keySet());
+        ordered.sort(Comparator.naturalOrder());
+        AtomicInteger done = new AtomicInteger();
+        List<Path> changed = new ArrayList<>();
+        for (Path relative : ordered) {
+            progress.checkCancelled();
+            BasicFileAttributes sourceAttrs = sourceEntries.get(relative);
+            Path targetPath = target.resolve(relative);
+            if (sourceAttrs.isDirectory()) {
+                if (!targetEntries.containsKey(relative)) {
+                    Files.createDirectories(targetPath);
+                }
+                progress.update(done.incrementAndGet(), ordered.size());
+                continue;
+            }
+            if (isUnchanged(source.resolve(relative), sourceAttrs, targetPath, targetEntries.get(relative), progress)) {
+                result.filesSkipped++;
+                progress.recordSkipped(0);
+                progress.update(done.incrementAndGet(), ordered.size());
+                continue;
+            }
+            changed.add(relative);
+            result.filesCopied++;
+            result.bytesCopied += sourceAttrs.size();
+        }
+        copier.copyAll(source, target, changed, progress, done, ordered.size());
+
+        logger.log(Level.FINE, "Synced {0} -> {1}: {2}", new Object[]{source, target, result});
+        return result;
+    }
+
+    private boolean isUnchanged(Path sourcePath, BasicFileAttributes sourceAttrs, Path targetPath, BasicFileAttributes targetAttrs, IoProgress progress) throws IOException {
+        if (targetAttrs == null || sourceAttrs.size() != targetAttrs.size()) {
+            return false;
+        }
+        if (sourceAttrs.lastModifiedTime().equals(targetAttrs.lastModifiedTime())) {
+            return true;
+        }
+        if (!compareContent) {
+            return false;
+        }
+        boolean identical = FileHashing.sha256(sourcePath, progress).equals(FileHashing.sha256(targetPath, progress));
+        progress.recordRead(2 * sourceAttrs.size());
+        if (identical) {
+            Files.setLastModifiedTime(targetPath, sourceAttrs.lastModifiedTime());
+        }
+        return identical;
+    }
+
+    public static class SyncResult {
+        private int filesCopied;
+        private int filesSkipped;
+        private int filesDeleted;
+        private long bytesCopied;
+
+        public int getFilesCopied() {
+            return filesCopied;
+        }
+
+        public int getFilesSkipped() {
+            return filesSkipped;
+        }
+
+        public int getFilesDeleted() {
+            return filesDeleted;
+        }
+
+        public long getBytesCopied() {
+            return bytesCopied;
+        }
+
+        @Override
+        public String toString() {
+            return filesCopied + " copied, " + filesSkipped + " skipped, " + filesDeleted + " deleted, " + bytesCopied + " bytes";
+        }
+    }
+}
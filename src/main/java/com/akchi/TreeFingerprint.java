@@ -0,0 +1,63 @@
+package com.akchi;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class TreeFingerprint {
+
+    private Map<String, FileState> cache = new HashMap<>();
+    private int filesHashed;
+
+    public synchronized String compute(Path root, IoProgress progress) throws IOException {
+        Map<String, FileState> current = new HashMap<>();
+        List<String> lines = new ArrayList<>();
+        filesHashed = 0;
+        if (Files.isDirectory(root)) {
+            try (Stream<Path> paths = Files.walk(root)) {
+                for (Path path : (Iterable<Path>) paths::iterator) {
+                    BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    String relative = FileTrees.relativeName(root, path);
+                    if (attrs.isDirectory()) {
+                        lines.add(relative + "/");
+                        continue;
+                    }
+                    long modified = attrs.lastModifiedTime().toMillis();
+                    FileState state = cache.get(relative);
+                    if (state == null || state.size != attrs.size() || state.modified != modified) {
+                        state = new FileState(attrs.size(), modified, FileHashing.sha256(path, progress));
+                        progress.recordRead(attrs.size());
+                        filesHashed++;
+                    }
+                    current.put(relative, state);
+                    lines.add(relative + "\t" + state.size + "\t" + state.hash);
+                }
+            }
+        }
+        cache = current;
+        return FileHashing.sha256(lines);
+    }
+
+    public synchronized int getFilesHashed() {
+        return filesHashed;
+    }
+
+    private static final class FileState {
+        private final long size;
+        private final long modified;
+        private final String hash;
+
+        private FileState(long size, long modified, String hash) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.akchi;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BackupCatalogTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void readsCatalogLinesWrittenBeforeTheManifestHashRename() throws IOException {
+        writeFolderBackup("2024-05-01, 10-00 AM");
+        Path catalogFile = temp.resolve("catalog-folders.jsonl");
+        Files.write(catalogFile, Collections.singletonList(
+                "{\"id\":\"2024-05-01, 10-00 AM\",\"created\":\"2024-05-01T08:00:00Z\",\"size\":415,\"files\":1,\"hash\":\"abc\"}"),
+                StandardCharsets.UTF_8);
+
+        BackupCatalog catalog = newCatalog(catalogFile);
+        catalog.load();
+
+        assertEquals("abc", catalog.get("2024-05-01, 10-00 AM").getManifestHash());
+    }
+
+    @Test
+    void persistsManifestHash() throws IOException {
+        writeFolderBackup("a");
+        Path catalogFile = temp.resolve("catalog-folders.jsonl");
+        BackupCatalog catalog = newCatalog(catalogFile);
+        catalog.load();
+        catalog.add(new BackupInfo("a", Instant.parse("2024-05-01T08:00:00Z"), 415, 1, "def"));
+
+        BackupCatalog reloaded = newCatalog(catalogFile);
+        reloaded.load();
+        assertEquals("def", reloaded.get("a").getManifestHash());
+    }
+
+    @Test
+    void reconcilesWithStorageOnLoad() throws IOException {
+        writeFolderBackup("kept");
+        writeFolderBackup("untracked");
+        Path catalogFile = temp.resolve("catalog-folders.jsonl");
+        Files.write(catalogFile, Arrays.asList(
+                "{\"id\":\"kept\",\"created\":\"2024-05-01T08:00:00Z\",\"size\":415,\"files\":1,\"manifest_hash\":\"abc\"}",
+                "{\"id\":\"deleted\",\"created\":\"2024-05-01T07:00:00Z\",\"size\":415,\"files\":1,\"manifest_hash\":\"def\"}"),
+                StandardCharsets.UTF_8);
+
+        BackupCatalog catalog = newCatalog(catalogFile);
+        catalog.load();
+
+        assertEquals(2, catalog.size());
+        assertNull(catalog.get("deleted"));
+        assertNotNull(catalog.get("untracked"));
+        assertEquals("abc", catalog.get("kept").getManifestHash());
+    }
+
+    private void writeFolderBackup(String backupId) throws IOException {
+        Path folder = temp.resolve("backup").resolve(backupId);
+        Files.createDirectories(folder);
+        Files.write(folder.resolve(SnapshotEngine.CONTINUE_SAV), SaveMetadataTest.fixture("continue-format-11.sav"));
+    }
+
+    private BackupCatalog newCatalog(Path catalogFile) {
+        return new BackupCatalog(catalogFile, new FolderBackupStorage(temp.resolve("backup").toFile(), new SnapshotSync(false)));
+    }
+}
@@ -0,0 +1,123 @@
+package com.akchi;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackupLockTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void isReentrantOnTheOwningThread() throws IOException {
+        BackupLock lock = new BackupLock(temp.resolve(".lock"), 1000);
+
+        lock.lock();
+        lock.lock();
+        assertTrue(temp.resolve(".lock").toFile().isFile());
+        lock.unlock();
+        lock.unlock();
+
+        BackupLock again = new BackupLock(temp.resolve(".lock"), 0);
+        again.lock();
+        again.unlock();
+    }
+
+    @Test
+    void otherThreadsWaitUntilReleased() throws Exception {
+        BackupLock lock = new BackupLock(temp.resolve(".lock"), 5000);
+        CompletableFuture<Long> waited;
+        lock.lock();
+        try {
+            waited = CompletableFuture.supplyAsync(() -> {
+                long started = System.nanoTime();
+                BackupLock second = new BackupLock(temp.resolve(".lock"), 5000);
+                try {
+                    second.lock();
+                    second.unlock();
+                    return System.nanoTime() - started;
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            TimeUnit.MILLISECONDS.sleep(200);
+        } finally {
+            lock.unlock();
+        }
+        assertTrue(waited.get(5, TimeUnit.SECONDS) >= TimeUnit.MILLISECONDS.toNanos(150));
+    }
+
+    @Test
+    void timesOutWhileAnotherThreadHoldsTheLock() throws Exception {
+        BackupLock held = new BackupLock(temp.resolve(".lock"), 1000);
+        held.lock();
+        try {
+            ExecutionException error = assertThrows(ExecutionException.class, () -> CompletableFuture.runAsync(() -> {
+                try {
+                    new BackupLock(temp.resolve(".lock"), 100).lock();
+                    throw new IllegalStateException("acquired a held lock");
+                } catch (IOException e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            }).get(5, TimeUnit.SECONDS));
+            assertTrue(error.getCause().getMessage().startsWith("Timed out waiting"));
+        } finally {
+            held.unlock();
+        }
+    }
+
+    @Test
+    void refusesWhileAnotherProcessHoldsTheLock() throws Exception {
+        Path lockFile = temp.resolve(".lock");
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process holder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), HoldLock.class.getName(), lockFile.toString())
+                .redirectErrorStream(true)
+                .start();
+        try {
+            BufferedReader out = new BufferedReader(new InputStreamReader(holder.getInputStream(), StandardCharsets.UTF_8));
+            assertEquals("locked", out.readLine());
+
+            IOException error = assertThrows(IOException.class, () -> new BackupLock(lockFile, 200).lock());
+            assertTrue(error.getMessage().startsWith("Another FTL Autosave Manager process"));
+        } finally {
+            holder.getOutputStream().close();
+            holder.waitFor(5, TimeUnit.SECONDS);
+            holder.destroyForcibly();
+        }
+        BackupLock released = new BackupLock(lockFile, 5000);
+        released.lock();
+        assertTrue(new File(lockFile.toString()).isFile());
+        released.unlock();
+    }
+
+    public static final class HoldLock {
+        public static void main(String[] args) throws IOException {
+            BackupLock held = new BackupLock(Paths.get(args[0]), 5000);
+            held.lock();
+            try {
+                System.out.println("locked");
+                System.out.flush();
+                while (System.in.read() >= 0) {
+                    // hold until the parent closes stdin
+                }
+            } finally {
+                held.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.akchi;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BackupManifestTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void acceptsMatchingTree() throws IOException {
+        BackupManifest manifest = new BackupManifest();
+        manifest.add("continue.sav", 5, write("continue.sav", "hello"), FileHashing.sha256("hello".getBytes(StandardCharsets.UTF_8)));
+        manifest.add("sub/ae_prof.sav", 3, write("sub/ae_prof.sav", "abc"), null);
+
+        manifest.verify(temp);
+    }
+
+    @Test
+    void rejectsSameSizedContentWithADifferentHash() throws IOException {
+        BackupManifest manifest = new BackupManifest();
+        manifest.add("continue.sav", 5, write("continue.sav", "jello"), FileHashing.sha256("hello".getBytes(StandardCharsets.UTF_8)));
+
+        assertThrows(IOException.class, () -> manifest.verify(temp));
+    }
+
+    @Test
+    void rejectsMissingAndUnexpectedFiles() throws IOException {
+        BackupManifest missing = new BackupManifest();
+        missing.add("continue.sav", 5, write("continue.sav", "hello"), null);
+        missing.add("ae_prof.sav", 3, 0, null);
+        assertThrows(IOException.class, () -> missing.verify(temp));
+
+        BackupManifest unexpected = new BackupManifest();
+        write("prof.sav", "xyz");
+        unexpected.add("continue.sav", 5, Files.getLastModifiedTime(temp.resolve("continue.sav")).toMillis(), null);
+        assertThrows(IOException.class, () -> unexpected.verify(temp));
+    }
+
+    @Test
+    void rejectsChangedModificationTime() throws IOException {
+        BackupManifest manifest = new BackupManifest();
+        manifest.add("continue.sav", 5, write("continue.sav", "hello") - 2000, null);
+
+        assertThrows(IOException.class, () -> manifest.verify(temp));
+    }
+
+    private long write(String name, String content) throws IOException {
+        Path file = temp.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1714557600000L));
+        return 1714557600000L;
+    }
+}
@@ -0,0 +1,92 @@
+package com.akchi;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryDeltaTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void encodesAgainstEmptyBase() {
+        byte[] target = randomBytes(1000);
+
+        assertRoundTrip(new byte[0], target);
+        assertRoundTrip(new byte[0], new byte[0]);
+        assertRoundTrip(randomBytes(100), new byte[0]);
+    }
+
+    @Test
+    void copiesAroundInsertions() {
+        byte[] base = randomBytes(4096);
+        byte[] target = concat(Arrays.copyOfRange(base, 0, 1000), randomBytes(17),
+                Arrays.copyOfRange(base, 1000, 3000), randomBytes(5), Arrays.copyOfRange(base, 3000, 4096));
+
+        byte[] delta = assertRoundTrip(base, target);
+        assertTrue(delta.length < 100, "delta should only carry the inserted bytes, was " + delta.length);
+    }
+
+    @Test
+    void findsShiftedBlock() {
+        byte[] base = randomBytes(2048);
+        byte[] target = concat(randomBytes(7), Arrays.copyOfRange(base, 1024, 2048), Arrays.copyOfRange(base, 0, 1024));
+
+        byte[] delta = assertRoundTrip(base, target);
+        assertTrue(delta.length < 64, "shifted halves should be copied, delta was " + delta.length);
+    }
+
+    @Test
+    void keepsTailShorterThanOneBlock() {
+        byte[] base = randomBytes(256);
+        byte[] target = concat(base, randomBytes(11));
+
+        assertRoundTrip(base, target);
+        assertRoundTrip(base, Arrays.copyOf(base, 250));
+        assertRoundTrip(Arrays.copyOf(base, 20), Arrays.copyOf(base, 20));
+    }
+
+    @Test
+    void roundTripsRandomEdits() {
+        for (int i = 0; i < 200; i++) {
+            byte[] base = randomBytes(random.nextInt(600));
+            byte[] target = base.clone();
+            for (int edit = random.nextInt(5); edit > 0 && target.length > 0; edit--) {
+                int at = random.nextInt(target.length);
+                target = concat(Arrays.copyOf(target, at), randomBytes(random.nextInt(40)),
+                        Arrays.copyOfRange(target, Math.min(target.length, at + random.nextInt(40)), target.length));
+            }
+            assertRoundTrip(base, target);
+        }
+    }
+
+    private static byte[] assertRoundTrip(byte[] base, byte[] target) {
+        byte[] delta = BinaryDelta.encode(base, target);
+        assertArrayEquals(target, BinaryDelta.apply(base, delta));
+        return delta;
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int position = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, position, part.length);
+            position += part.length;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,70 @@
+package com.akchi;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IoThrottleTest {
+
+    @Test
+    void limitsChunkedCopiesToTheConfiguredRate() {
+        IoThrottle throttle = new IoThrottle(1_000_000);
+        IoProgress progress = IoProgress.none();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < 10; i++) {
+            throttle.acquire(50_000, progress);
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis >= 250, "finished after " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void allowsOnlyAShortBurst() {
+        IoThrottle throttle = new IoThrottle(8_000_000);
+        IoProgress progress = IoProgress.none();
+        throttle.acquire(2_000_000, progress);
+        long start = System.nanoTime();
+
+        throttle.acquire(1, progress);
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis >= 100, "waited only " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void stopsWaitingWhenCancelled() {
+        IoThrottle throttle = new IoThrottle(1_000);
+        IoProgress progress = IoProgress.none();
+        throttle.acquire(1_000_000, progress);
+        ScheduledExecutorService canceller = Executors.newSingleThreadScheduledExecutor();
+        try {
+            canceller.schedule(progress::cancel, 100, TimeUnit.MILLISECONDS);
+            long start = System.nanoTime();
+
+            assertThrows(CancellationException.class, () -> throttle.acquire(1, progress));
+
+            assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+        } finally {
+            canceller.shutdownNow();
+        }
+    }
+
+    @Test
+    void neverWaitsWhenUnlimited() {
+        IoThrottle throttle = IoThrottle.unlimited();
+        long start = System.nanoTime();
+
+        throttle.acquire(Long.MAX_VALUE, IoProgress.none());
+        throttle.acquire(Long.MAX_VALUE, IoProgress.none());
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+    }
+}
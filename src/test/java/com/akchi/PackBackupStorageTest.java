@@ -0,0 +1,66 @@
+package com.akchi;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PackBackupStorageTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void doesNotReimportDeletedFolderBackups() throws IOException {
+        Path backupFolder = temp.resolve("backup");
+        writeSave(backupFolder.resolve("2024-05-01, 10-00 AM"), "continue-format-11.sav");
+        Path packFile = backupFolder.resolve("backups.pack");
+
+        PackBackupStorage storage = new PackBackupStorage(packFile);
+        assertEquals(Collections.singletonList("2024-05-01, 10-00 AM"), storage.importFolderBackups(backupFolder.toFile(), IoProgress.none()));
+        storage.deleteBackups(Collections.singletonList("2024-05-01, 10-00 AM"));
+
+        PackBackupStorage reopened = new PackBackupStorage(packFile);
+        assertTrue(reopened.pendingFolderImports(backupFolder.toFile()).isEmpty());
+        assertTrue(reopened.listBackups().isEmpty());
+    }
+
+    @Test
+    void rebuildsTheIndexWhenTheFooterIsLost() throws IOException {
+        Path packFile = temp.resolve("backups.pack");
+        PackBackupStorage storage = new PackBackupStorage(packFile);
+        writeSave(temp.resolve("first"), "continue-format-9.sav");
+        writeSave(temp.resolve("second"), "continue-format-11.sav");
+        storage.createBackup(temp.resolve("first"), "first", IoProgress.none());
+        storage.createBackup(temp.resolve("second"), "second", IoProgress.none());
+        storage.deleteBackups(Collections.singletonList("first"));
+        try (FileChannel channel = FileChannel.open(packFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        PackBackupStorage reopened = new PackBackupStorage(packFile);
+        List<String> backups = reopened.listBackups();
+        assertEquals(Collections.singletonList("second"), backups);
+        assertFalse(backups.contains("first"));
+
+        Path target = temp.resolve("restored");
+        reopened.restoreBackup("second", target, IoProgress.none());
+        assertArrayEquals(SaveMetadataTest.fixture("continue-format-11.sav"), Files.readAllBytes(target.resolve(SnapshotEngine.CONTINUE_SAV)));
+    }
+
+    private static void writeSave(Path folder, String fixture) throws IOException {
+        Files.createDirectories(folder);
+        Files.write(folder.resolve(SnapshotEngine.CONTINUE_SAV), SaveMetadataTest.fixture(fixture));
+    }
+}
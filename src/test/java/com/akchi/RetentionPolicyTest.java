@@ -0,0 +1,64 @@
+package com.akchi;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetentionPolicyTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T12:00:00Z");
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void isOffUntilEnabledInConfig() {
+        ConfigStore config = new ConfigStore(temp.resolve("autosaveConfig.json").toFile(), 0);
+        RetentionPolicy policy = RetentionPolicy.fromConfig(config);
+
+        assertFalse(policy.isEnabled());
+        assertTrue(policy.selectExpired(backupsEvery(Duration.ofMinutes(10), 500), NOW).isEmpty());
+
+        config.set("retention_enabled", true);
+        assertTrue(RetentionPolicy.fromConfig(config).isEnabled());
+    }
+
+    @Test
+    void thinsOlderBackupsToHourlyAndDaily() {
+        RetentionPolicy policy = new RetentionPolicy(true, Duration.ofHours(1), Duration.ofHours(24), Duration.ofDays(30), 0, ZoneOffset.UTC);
+        List<BackupInfo> backups = backupsEvery(Duration.ofMinutes(30), 48 * 40);
+
+        List<String> expired = policy.selectExpired(backups, NOW);
+
+        int kept = backups.size() - expired.size();
+        assertEquals(2 + 24 + 30, kept);
+        assertFalse(expired.contains(backups.get(0).getId()));
+    }
+
+    @Test
+    void capsTotalSizeButKeepsNewest() {
+        RetentionPolicy policy = new RetentionPolicy(true, Duration.ofDays(1), Duration.ofDays(1), Duration.ofDays(1), 250, ZoneOffset.UTC);
+        List<BackupInfo> backups = backupsEvery(Duration.ofMinutes(1), 5);
+
+        assertEquals(Arrays.asList("b2", "b3", "b4"), policy.selectExpired(backups, NOW));
+    }
+
+    private static List<BackupInfo> backupsEvery(Duration step, int count) {
+        List<BackupInfo> backups = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            backups.add(new BackupInfo("b" + i, NOW.minus(step.multipliedBy(i)), 100, 1, ""));
+        }
+        return backups;
+    }
+}
@@ -0,0 +1,117 @@
+package com.akchi;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SaveIndexTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void reloadsAppendedAndRemovedEntries() {
+        Path file = temp.resolve("save-index.bin");
+        SaveIndex index = new SaveIndex(file);
+        index.load();
+        index.add("a", new SaveMetadata("The Kestrel", 3, 27, 112, 3, 0));
+        index.add("b", new SaveMetadata("Red-Tail", 5, 19, 48, 4, 1));
+        index.add("a", new SaveMetadata("The Kestrel", 4, 25, 90, 3, 0));
+        index.remove(Collections.singletonList("b"));
+
+        SaveIndex reloaded = new SaveIndex(file);
+        reloaded.load();
+        assertEquals(4, reloaded.get("a").getSector());
+        assertNull(reloaded.get("b"));
+    }
+
+    @Test
+    void searchFiltersAndSorts() {
+        SaveIndex index = new SaveIndex(temp.resolve("save-index.bin"));
+        index.load();
+        index.add("old", new SaveMetadata("The Kestrel", 2, 30, 10, 3, 0));
+        index.add("mid", new SaveMetadata("Red-Tail", 5, 12, 200, 4, 1));
+        index.add("new", new SaveMetadata("The Kestrel", 7, 20, 80, 3, 0));
+        List<BackupInfo> newestFirst = Arrays.asList(backup("new"), backup("mid"), backup("old"));
+
+        assertEquals(Arrays.asList("new", "old"), ids(index.search(newestFirst, SaveQuery.parse("kestrel"))));
+        assertEquals(Arrays.asList("mid", "new"), ids(index.search(newestFirst, SaveQuery.parse("sector >= 5 sort:scrap"))));
+    }
+
+    @Test
+    void dropsTruncatedTail() throws IOException {
+        Path file = temp.resolve("save-index.bin");
+        SaveIndex index = new SaveIndex(file);
+        index.load();
+        index.add("a", new SaveMetadata("The Kestrel", 3, 27, 112, 3, 0));
+        index.add("b", new SaveMetadata("Red-Tail", 5, 19, 48, 4, 1));
+        byte[] data = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(data, data.length - 3));
+
+        SaveIndex reloaded = new SaveIndex(file);
+        reloaded.load();
+        assertEquals(3, reloaded.get("a").getSector());
+        assertNull(reloaded.get("b"));
+
+        SaveIndex again = new SaveIndex(file);
+        again.load();
+        assertEquals(3, again.get("a").getSector());
+    }
+
+    @Test
+    void replacesUnknownFormat() throws IOException {
+        Path file = temp.resolve("save-index.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 0, 0, 0, 1});
+
+        SaveIndex index = new SaveIndex(file);
+        index.load();
+        index.add("a", new SaveMetadata("The Kestrel", 3, 27, 112, 3, 0));
+
+        SaveIndex reloaded = new SaveIndex(file);
+        reloaded.load();
+        assertEquals(27, reloaded.get("a").getHull());
+    }
+
+    @Test
+    void leavesUnreadableIndexUntouched() throws IOException {
+        Path file = temp.resolve("save-index.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(0x46544c49);
+            out.writeInt(1);
+            out.writeShort(2);
+            out.write(new byte[]{(byte) 0xC0, 0x20});
+        }
+        byte[] original = Files.readAllBytes(file);
+
+        SaveIndex index = new SaveIndex(file);
+        index.load();
+        index.add("a", new SaveMetadata("The Kestrel", 3, 27, 112, 3, 0));
+        index.remove(Collections.singletonList("a"));
+
+        assertArrayEquals(original, Files.readAllBytes(file));
+    }
+
+    private static BackupInfo backup(String id) {
+        return new BackupInfo(id, Instant.EPOCH, 0, 0, "");
+    }
+
+    private static List<String> ids(List<BackupInfo> backups) {
+        String[] ids = new String[backups.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = backups.get(i).getId();
+        }
+        return Arrays.asList(ids);
+    }
+}
@@ -0,0 +1,75 @@
+package com.akchi;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SaveMetadataTest {
+
+    @Test
+    void readsFormat2() throws IOException {
+        assertMetadata("continue-format-2.sav", "The Kestrel", 3, 27, 112, 3, "Easy");
+    }
+
+    @Test
+    void readsFormat7() throws IOException {
+        assertMetadata("continue-format-7.sav", "Red-Tail", 5, 19, 48, 4, "Normal");
+    }
+
+    @Test
+    void readsFormat8() throws IOException {
+        assertMetadata("continue-format-8.sav", "The Torus", 2, 30, 0, 2, "Normal");
+    }
+
+    @Test
+    void readsFormat9() throws IOException {
+        assertMetadata("continue-format-9.sav", "Bonnet of the Bürgermeister", 8, 8, 305, 3, "Hard");
+    }
+
+    @Test
+    void readsFormat11() throws IOException {
+        assertMetadata("continue-format-11.sav", "The Nisos", 7, 22, 76, 2, "Hard");
+    }
+
+    @Test
+    void rejectsUnknownFormats() throws IOException {
+        byte[] data = fixture("continue-format-7.sav");
+        for (int format : new int[]{0, 1, 3, 5, 6, 10, 12}) {
+            data[0] = (byte) format;
+            IOException error = assertThrows(IOException.class, () -> SaveMetadata.read(new ByteArrayInputStream(data)));
+            assertEquals("Unsupported save format " + format, error.getMessage());
+        }
+    }
+
+    @Test
+    void rejectsTruncatedSave() throws IOException {
+        byte[] data = fixture("continue-format-11.sav");
+
+        assertThrows(EOFException.class, () -> SaveMetadata.read(new ByteArrayInputStream(Arrays.copyOf(data, 60))));
+    }
+
+    private static void assertMetadata(String name, String ship, int sector, int hull, int scrap, int crew, String difficulty)
+            throws IOException {
+        SaveMetadata metadata = SaveMetadata.read(new ByteArrayInputStream(fixture(name)));
+
+        assertEquals(ship, metadata.getShipName());
+        assertEquals(sector, metadata.getSector());
+        assertEquals(hull, metadata.getHull());
+        assertEquals(scrap, metadata.getScrap());
+        assertEquals(crew, metadata.getCrewCount());
+        assertEquals(difficulty, metadata.getDifficultyName());
+    }
+
+    static byte[] fixture(String name) throws IOException {
+        try (InputStream in = SaveMetadataTest.class.getResourceAsStream("/saves/" + name)) {
+            return in.readAllBytes();
+        }
+    }
+}
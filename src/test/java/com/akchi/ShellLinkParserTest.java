@@ -0,0 +1,71 @@
+package com.akchi;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShellLinkParserTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void readsLocalBasePathFromLinkInfo() throws IOException {
+        ShellLinkParser.ShellLink link = ShellLinkParser.parse(fixture("local-path.lnk"));
+
+        assertEquals("C:\\Program Files (x86)\\Steam\\steamapps\\common\\FTL Faster Than Light\\FTLGame.exe", link.getBasePath());
+        assertEquals("C:\\Program Files (x86)\\Steam\\steamapps\\common\\FTL Faster Than Light\\FTLGame.exe", link.getIdListPath());
+        assertEquals("..\\..\\..\\Program Files (x86)\\Steam\\steamapps\\common\\FTL Faster Than Light\\FTLGame.exe", link.getRelativePath());
+    }
+
+    @Test
+    void resolvesIdListOnlyShortcutFromLongNames() throws IOException {
+        ShellLinkParser.ShellLink link = ShellLinkParser.parse(fixture("id-list-only.lnk"));
+
+        assertNull(link.getBasePath());
+        assertNull(link.getRelativePath());
+        assertEquals("D:\\My Games\\FTL Faster Than Light\\FTLGame.exe", link.getIdListPath());
+        assertEquals("D:\\My Games\\FTL Faster Than Light\\FTLGame.exe", ShellLinkParser.resolveTarget(copy("id-list-only.lnk")));
+    }
+
+    @Test
+    void prefersUnicodeLinkInfoPaths() throws IOException {
+        ShellLinkParser.ShellLink link = ShellLinkParser.parse(fixture("unicode-link-info.lnk"));
+
+        assertEquals("E:\\Spiele\\FTL \u2013 Faster Than Light \u2605\\FTLGame.exe", link.getBasePath());
+        assertEquals("E:\\Spiele\\FTL \u2013 Faster Than Light \u2605\\FTLGame.exe", link.getIdListPath());
+    }
+
+    @Test
+    void rejectsFilesWithoutShellLinkHeader() {
+        assertThrows(IOException.class, () -> ShellLinkParser.parse("not a shortcut".getBytes()));
+    }
+
+    @Test
+    void rejectsTruncatedShortcut() throws IOException {
+        byte[] data = fixture("local-path.lnk");
+
+        assertThrows(IOException.class, () -> ShellLinkParser.parse(Arrays.copyOf(data, 0x60)));
+    }
+
+    private Path copy(String name) throws IOException {
+        Path shortcut = temp.resolve(name);
+        Files.write(shortcut, fixture(name));
+        return shortcut;
+    }
+
+    private static byte[] fixture(String name) throws IOException {
+        try (InputStream in = ShellLinkParserTest.class.getResourceAsStream("/lnk/" + name)) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.akchi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotEngineTest {
+
+    @TempDir
+    Path temp;
+
+    private SnapshotEngine engine;
+
+    @AfterEach
+    void closeEngine() {
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    @Test
+    void keepsFolderStorageForExistingBackups() throws IOException {
+        Path legacy = temp.resolve("backup/2024-05-01, 10-00 AM");
+        Files.createDirectories(legacy);
+        Files.write(legacy.resolve(SnapshotEngine.CONTINUE_SAV), SaveMetadataTest.fixture("continue-format-11.sav"));
+
+        engine = newEngine();
+
+        assertEquals("folders", engine.getConfig().getString("backup_storage", null));
+        assertNotNull(engine.getCatalog().get("2024-05-01, 10-00 AM"));
+    }
+
+    @Test
+    void usesObjectStorageForNewInstalls() {
+        engine = newEngine();
+
+        assertEquals("objects", engine.getConfig().getString("backup_storage", null));
+    }
+
+    @Test
+    void importsFolderBackupsIntoPackOnTheWriterLane() throws Exception {
+        Path legacy = temp.resolve("backup/2024-05-01, 10-00 AM");
+        Files.createDirectories(legacy);
+        Files.write(legacy.resolve(SnapshotEngine.CONTINUE_SAV), SaveMetadataTest.fixture("continue-format-11.sav"));
+        ConfigStore config = new ConfigStore(temp.resolve("config/autosaveConfig.json").toFile(), 0);
+        config.set("backup_storage", "pack");
+        config.flush();
+
+        engine = newEngine();
+        assertNull(engine.getCatalog().get("2024-05-01, 10-00 AM"));
+        assertTrue(engine.hasFolderImport());
+
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicInteger lastTotal = new AtomicInteger();
+        engine.submit("import", "Import folder backups", engine::importFolderBackups, new IoListener() {
+            @Override
+            public void onProgress(int done, int total) {
+                lastTotal.set(total);
+            }
+
+            @Override
+            public void onFinished(boolean cancelled, Exception failure) {
+                finished.countDown();
+            }
+        });
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertEquals(1, lastTotal.get());
+        assertNotNull(engine.getCatalog().get("2024-05-01, 10-00 AM"));
+        assertFalse(engine.hasFolderImport());
+    }
+
+    @Test
+    void givesBackToBackSnapshotsDistinctIds() throws IOException {
+        Path save = temp.resolve("ftl").resolve(SnapshotEngine.CONTINUE_SAV);
+        Files.createDirectories(save.getParent());
+        engine = newEngine();
+        engine.ensureFoldersExist();
+
+        for (int format : new int[]{2, 7, 9}) {
+            Files.write(save, SaveMetadataTest.fixture("continue-format-" + format + ".sav"));
+            engine.snapshot(IoProgress.none());
+        }
+
+        List<BackupInfo> backups = engine.getCatalog().newestFirst();
+        Set<String> ids = new HashSet<>();
+        for (BackupInfo backup : backups) {
+            ids.add(backup.getId());
+        }
+        assertEquals(3, ids.size());
+    }
+
+    @Test
+    void restoresEveryStorageModeThroughManifestVerification() throws IOException {
+        for (String mode : new String[]{"objects", "pack", "folders"}) {
+            Path root = temp.resolve(mode);
+            ConfigStore config = new ConfigStore(root.resolve("config/autosaveConfig.json").toFile(), 0);
+            config.set("backup_storage", mode);
+            config.flush();
+            Path save = root.resolve("ftl").resolve(SnapshotEngine.CONTINUE_SAV);
+            Files.createDirectories(save.getParent());
+            Files.write(save, SaveMetadataTest.fixture("continue-format-9.sav"));
+            SnapshotEngine modeEngine = new SnapshotEngine(root.resolve("config/autosaveConfig.json").toFile(), root.resolve("ftl").toFile(),
+                    root.resolve("autosave").toFile(), root.resolve("backup").toFile(), Runnable::run);
+            try {
+                modeEngine.ensureFoldersExist();
+                modeEngine.snapshot(IoProgress.none());
+                String backupId = modeEngine.getCatalog().newestFirst().get(0).getId();
+                Files.write(save, SaveMetadataTest.fixture("continue-format-11.sav"));
+
+                modeEngine.restoreBackup(backupId, IoProgress.none());
+
+                assertArrayEquals(SaveMetadataTest.fixture("continue-format-9.sav"), Files.readAllBytes(save), mode);
+            } finally {
+                modeEngine.close();
+            }
+        }
+    }
+
+    private SnapshotEngine newEngine() {
+        return new SnapshotEngine(temp.resolve("config/autosaveConfig.json").toFile(), temp.resolve("ftl").toFile(),
+                temp.resolve("autosave").toFile(), temp.resolve("backup").toFile(), Runnable::run);
+    }
+}
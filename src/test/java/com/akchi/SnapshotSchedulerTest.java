@@ -0,0 +1,51 @@
+package com.akchi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotSchedulerTest {
+
+    @TempDir
+    Path temp;
+
+    private final SnapshotScheduler scheduler = new SnapshotScheduler(1, 1, 0);
+
+    @AfterEach
+    void closeScheduler() {
+        scheduler.close();
+    }
+
+    @Test
+    void notifiesEveryProfileWatchingTheSameFolder() throws Exception {
+        Semaphore firstSaves = new Semaphore(0);
+        Semaphore secondSaves = new Semaphore(0);
+        SaveWatcher first = new SaveWatcher(scheduler, temp, SnapshotEngine.CONTINUE_SAV, 100, firstSaves::release);
+        SaveWatcher second = new SaveWatcher(scheduler, temp, SnapshotEngine.CONTINUE_SAV, 100, secondSaves::release);
+        first.start();
+        second.start();
+
+        writeSave("first");
+        assertTrue(firstSaves.tryAcquire(10, TimeUnit.SECONDS));
+        assertTrue(secondSaves.tryAcquire(10, TimeUnit.SECONDS));
+
+        first.close();
+        writeSave("second");
+        assertTrue(secondSaves.tryAcquire(10, TimeUnit.SECONDS));
+        assertFalse(firstSaves.tryAcquire(500, TimeUnit.MILLISECONDS));
+        second.close();
+    }
+
+    private void writeSave(String content) throws IOException {
+        Files.write(temp.resolve(SnapshotEngine.CONTINUE_SAV), content.getBytes());
+    }
+}